@@ -0,0 +1,146 @@
+package benchmarks;
+
+import data.CountryAggregates;
+import data.CountryDataset;
+import data.DataAnalyser;
+import data.DataLoader;
+import data.DataRecord;
+import data.DataSlice;
+import data.OrderStatistics;
+import data.RangeStats;
+import data.Ranking;
+import data.RankingEngine;
+import data.WindowSummary;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.DoubleSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The DataAnalyser calls plus the median / std dev helpers the stats panel uses. The median and std dev used
+ * to be worked out inside MainApp, they now live in OrderStatistics and DataAnalyser.getCountryStats so they
+ * can be measured here without starting JavaFX.
+ *
+ * The per country benchmarks walk through every country in turn, so the numbers are an average over short and
+ * long series rather than whichever country happened to come first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyserBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.BUNDLED, BenchmarkData.LARGE})
+    public String dataset;
+
+    private DataLoader loader;
+    private DataAnalyser analyser;
+    private CountryDataset data;
+    private OrderStatistics orderStatistics;
+    private int year;
+    private int nextCountry;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path file = BenchmarkData.prepare(dataset);
+        try {
+            loader = new DataLoader();
+            loader.loadCSV(file.toString(), DataLoader.ParseMode.MAPPED);
+            analyser = new DataAnalyser(loader);
+            data = loader.getDataset();
+        } finally {
+            BenchmarkData.cleanUp(file);
+        }
+        // built once up front, like the app does the first time the stats panel needs it
+        orderStatistics = analyser.getOrderStatistics(data);
+        year = data.maxYear() - 10;
+    }
+
+    private DataSlice nextSlice() {
+        int id = nextCountry;
+        nextCountry = (id + 1) % data.countryCount();
+        return data.slice(id, data.minYear(), data.maxYear());
+    }
+
+    // the analyser keeps the aggregates table after the first call, so this and minMaxEmissions only measure
+    // turning it into a map. The Uncached versions below include the group by as well.
+    @Benchmark
+    public Map<String, Double> averageEmissions() {
+        return analyser.getAverageEmissions();
+    }
+
+    @Benchmark
+    public Map<String, Double> averageEmissionsUncached() {
+        return new DataAnalyser(loader).getAverageEmissions();
+    }
+
+    // the parallel group by on its own
+    @Benchmark
+    public CountryAggregates countryAggregates() {
+        return CountryAggregates.of(data);
+    }
+
+    @Benchmark
+    public List<DataRecord> emissionsByYear() {
+        return analyser.getEmissionsByYear(year);
+    }
+
+    // the ranked list is a lazy view, so read every record or this would only time the view's creation
+    @Benchmark
+    public void emissionsByYearRanked(Blackhole blackhole) {
+        for (DataRecord record : analyser.getEmissionsByYearRanked(year)) {
+            blackhole.consume(record);
+        }
+    }
+
+    @Benchmark
+    public int rankInYear() {
+        int id = nextCountry;
+        nextCountry = (id + 1) % data.countryCount();
+        return analyser.getYearIndex(data).rank(id, year);
+    }
+
+    @Benchmark
+    public Map<String, DoubleSummaryStatistics> minMaxEmissions() {
+        return analyser.getMinMaxEmissions();
+    }
+
+    @Benchmark
+    public Map<String, DoubleSummaryStatistics> minMaxEmissionsUncached() {
+        return new DataAnalyser(loader).getMinMaxEmissions();
+    }
+
+    // what the leaderboard asks for on every slider move
+    @Benchmark
+    public Ranking topTwenty() {
+        RankingEngine engine = analyser.getRankingEngine(data);
+        return engine.top(RankingEngine.Metric.MEAN, year - 20, year, 20, engine.excludingAggregates());
+    }
+
+    @Benchmark
+    public double median() {
+        return orderStatistics.median(nextSlice());
+    }
+
+    @Benchmark
+    public double stdDev() {
+        return analyser.getCountryStats(nextSlice()).getStdDev();
+    }
+
+    @Benchmark
+    public RangeStats rangeStats() {
+        return analyser.getRangeStats(nextSlice());
+    }
+
+    @Benchmark
+    public WindowSummary windowSummary() {
+        return analyser.getWindowSummary(nextSlice());
+    }
+}
@@ -0,0 +1,79 @@
+package benchmarks;
+
+import tools.DatasetGenerator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The CSV files the benchmarks run against. Every file is written into a fresh temp folder so the snapshot a
+ * load leaves behind never ends up next to the real data, and the synthetic ones come from DatasetGenerator
+ * with its fixed seed so every run (and every machine) measures the same rows.
+ *
+ *  small   - 20 countries over 50 years, about what a user sees after filtering
+ *  bundled - a copy of data/co2-emissions-per-capita.csv (around 26k rows)
+ *  large   - 2000 countries over 275 years, about 550k rows
+ */
+final class BenchmarkData {
+    static final String SMALL = "small";
+    static final String BUNDLED = "bundled";
+    static final String LARGE = "large";
+
+    // the bundled file can be pointed at directly when the benchmarks arent started from the project folder
+    private static final String DATA_PROPERTY = "climate.data";
+    private static final String BUNDLED_NAME = "co2-emissions-per-capita.csv";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Makes a temp copy of the named dataset and returns its path
+     */
+    static Path prepare(String name) {
+        try {
+            Path dir = Files.createTempDirectory("climate-bench");
+            dir.toFile().deleteOnExit();
+            Path file = dir.resolve(name + ".csv");
+            switch (name) {
+                case SMALL -> new DatasetGenerator().countries(20).years(50).firstYear(1970).write(file);
+                case LARGE -> new DatasetGenerator().countries(2000).years(275).firstYear(1750).write(file);
+                case BUNDLED -> Files.copy(findBundled(), file, StandardCopyOption.REPLACE_EXISTING);
+                default -> throw new IllegalArgumentException("Unknown dataset: " + name);
+            }
+            file.toFile().deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Removes the temp copy together with any snapshot a load wrote next to it
+     */
+    static void cleanUp(Path file) {
+        if (file == null) return;
+        try (var files = Files.list(file.getParent())) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(p);
+            }
+            Files.deleteIfExists(file.getParent());
+        } catch (IOException e) {
+            // only temp files, nothing to worry about
+        }
+    }
+
+    private static Path findBundled() throws IOException {
+        String configured = System.getProperty(DATA_PROPERTY);
+        if (configured != null) return Paths.get(configured);
+        // works from the project folder and from inside benchmarks/
+        for (String candidate : new String[] {"data/" + BUNDLED_NAME, "../data/" + BUNDLED_NAME}) {
+            Path path = Paths.get(candidate);
+            if (Files.isRegularFile(path)) return path;
+        }
+        throw new IOException("Could not find " + BUNDLED_NAME + ", run from the project folder or pass -D" + DATA_PROPERTY + "=<file>");
+    }
+}
@@ -0,0 +1,88 @@
+package benchmarks;
+
+import data.CountryDataset;
+import data.DataLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How fast a CSV turns into a CountryDataset. loadCSV is what the Load Data button calls, so after the first
+ * iteration it is really measuring the snapshot read; the parse modes are measured on their own as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Param({BenchmarkData.SMALL, BenchmarkData.BUNDLED, BenchmarkData.LARGE})
+    public String dataset;
+
+    private Path file;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        file = BenchmarkData.prepare(dataset);
+        path = file.toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.cleanUp(file);
+    }
+
+    @Benchmark
+    public CountryDataset loadCSV() throws IOException {
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(path);
+        return loader.getDataset();
+    }
+
+    @Benchmark
+    public CountryDataset parseMapped() throws IOException {
+        return load(DataLoader.ParseMode.MAPPED);
+    }
+
+    @Benchmark
+    public CountryDataset parseParallel() throws IOException {
+        return load(DataLoader.ParseMode.PARALLEL);
+    }
+
+    @Benchmark
+    public CountryDataset parseBuffered() throws IOException {
+        return load(DataLoader.ParseMode.BUFFERED);
+    }
+
+    private CountryDataset load(DataLoader.ParseMode mode) throws IOException {
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(path, mode);
+        return loader.getDataset();
+    }
+
+    /**
+     * loadCSV with no snapshot to fall back on, i.e. the very first time a file is opened
+     */
+    @State(Scope.Thread)
+    public static class ColdState {
+        @Setup(Level.Invocation)
+        public void deleteSnapshots(LoadBenchmark benchmark) throws IOException {
+            try (var files = Files.list(benchmark.file.getParent())) {
+                for (Path p : (Iterable<Path>) files::iterator) {
+                    if (!p.equals(benchmark.file)) Files.deleteIfExists(p);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public CountryDataset loadCSVCold(ColdState cold) throws IOException {
+        return loadCSV();
+    }
+}
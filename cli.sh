@@ -0,0 +1,14 @@
+#!/bin/bash
+# Command line reports, no JavaFX needed. Usage: ./cli.sh [options] file.csv [more.csv ...]  (./cli.sh --help)
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+OUT="$DIR/build/cli"
+
+# only compile again when a source file is newer than the last build
+if [ ! -f "$OUT/cli/ClimateCli.class" ] || [ -n "$(find "$DIR/cli" "$DIR/data" -name '*.java' -newer "$OUT/cli/ClimateCli.class")" ]; then
+    mkdir -p "$OUT"
+    javac -d "$OUT" "$DIR"/cli/*.java "$DIR"/data/*.java >&2 || exit 1
+fi
+
+# small heap and quick startup for cron jobs, override with JAVA_OPTS
+exec java ${JAVA_OPTS:--Xmx256m -XX:+UseSerialGC -XX:TieredStopAtLevel=1 -Xshare:auto} -cp "$OUT" cli.ClimateCli "$@"
@@ -0,0 +1,264 @@
+package cli;
+
+import data.CountryAggregates;
+import data.CountryDataset;
+import data.DataAnalyser;
+import data.DataLoader;
+import data.DataRecord;
+import data.RangeStats;
+import data.Ranking;
+import data.RankingEngine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Command line version of the analysis, no JavaFX needed. Loads one or more CSVs in parallel with DataLoader,
+ * runs the requested reports through DataAnalyser and streams them as CSV or JSON to stdout or to files.
+ *
+ *   ./cli.sh [options] file.csv [more.csv ...]
+ *
+ * Results are written in the order the files were given, each one as soon as it (and the ones before it) is done.
+ */
+public final class ClimateCli {
+
+    private static final String USAGE = String.join("\n",
+        "Usage: cli.sh [options] file.csv [more.csv ...]",
+        "",
+        "  -r, --report LIST   comma separated reports (default averages,minmax):",
+        "                        averages      mean emissions per country",
+        "                        minmax        min / max per country",
+        "                        year=YYYY     every country's value in one year",
+        "                        ranking       countries ranked by mean, highest first",
+        "      --from YEAR     only use years from YEAR (averages, minmax, ranking)",
+        "      --to YEAR       only use years up to YEAR",
+        "      --top N         rows in the ranking (default 10, 0 for all)",
+        "  -f, --format FMT    csv (default) or json (one JSON object per line)",
+        "  -o, --out DIR       write <file>_<report>.<fmt> files into DIR instead of stdout",
+        "  -t, --threads N     files loaded at the same time (default: number of CPUs)",
+        "  -h, --help          show this help");
+
+    private final List<String> reports = new ArrayList<>(Arrays.asList("averages", "minmax"));
+    private final List<Path> inputs = new ArrayList<>();
+    private Integer fromYear;
+    private Integer toYear;
+    private int top = 10;
+    private ReportWriter.Format format = ReportWriter.Format.CSV;
+    private Path outDir;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    public static void main(String[] args) {
+        ClimateCli cli = new ClimateCli();
+        try {
+            if (!cli.parse(args)) {
+                System.out.println(USAGE);
+                return;
+            }
+        } catch (IllegalArgumentException ex) {
+            System.err.println("Error: " + ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        System.exit(cli.run());
+    }
+
+    /**
+     * Returns false when only the help was asked for
+     */
+    boolean parse(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "-h":
+                case "--help":
+                    return false;
+                case "-r":
+                case "--report":
+                    reports.clear();
+                    for (String report : value(args, ++i, arg).split(",")) {
+                        String name = report.trim().toLowerCase();
+                        if (!name.equals("averages") && !name.equals("minmax") && !name.equals("ranking") && !name.matches("year=-?\\d+")) {
+                            throw new IllegalArgumentException("unknown report: " + report);
+                        }
+                        reports.add(name);
+                    }
+                    break;
+                case "--from":
+                    fromYear = number(value(args, ++i, arg), arg);
+                    break;
+                case "--to":
+                    toYear = number(value(args, ++i, arg), arg);
+                    break;
+                case "--top":
+                    top = number(value(args, ++i, arg), arg);
+                    break;
+                case "-f":
+                case "--format":
+                    String fmt = value(args, ++i, arg).toLowerCase();
+                    if (fmt.equals("csv")) format = ReportWriter.Format.CSV;
+                    else if (fmt.equals("json")) format = ReportWriter.Format.JSON;
+                    else throw new IllegalArgumentException("unknown format: " + fmt);
+                    break;
+                case "-o":
+                case "--out":
+                    outDir = Paths.get(value(args, ++i, arg));
+                    break;
+                case "-t":
+                case "--threads":
+                    threads = Math.max(1, number(value(args, ++i, arg), arg));
+                    break;
+                default:
+                    if (arg.startsWith("-")) throw new IllegalArgumentException("unknown option: " + arg);
+                    inputs.add(Paths.get(arg));
+            }
+        }
+        if (inputs.isEmpty()) throw new IllegalArgumentException("no CSV files given");
+        return true;
+    }
+
+    /**
+     * Runs everything, returns the exit code (1 if any file failed)
+     */
+    int run() {
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, inputs.size()), runnable -> {
+            Thread thread = new Thread(runnable, "cli-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        List<Future<List<ReportTable>>> results = new ArrayList<>();
+        for (Path input : inputs) {
+            results.add(pool.submit(() -> analyse(input)));
+        }
+
+        ReportWriter writer = new ReportWriter(format);
+        Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        int exitCode = 0;
+        try {
+            if (outDir != null) Files.createDirectories(outDir);
+            for (int i = 0; i < inputs.size(); i++) {
+                try {
+                    for (ReportTable table : results.get(i).get()) {
+                        if (outDir == null) {
+                            writer.write(table, stdout, true);
+                        } else {
+                            Path file = outDir.resolve(baseName(inputs.get(i)) + "_" + table.report.replace('=', '-') + "." + writer.extension());
+                            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                                writer.write(table, out, false);
+                            }
+                        }
+                    }
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    System.err.println("Failed on " + inputs.get(i) + ": " + cause);
+                    exitCode = 1;
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Could not write results: " + ex.getMessage());
+            exitCode = 1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exitCode = 1;
+        } finally {
+            pool.shutdownNow();
+        }
+        return exitCode;
+    }
+
+    /**
+     * Loads one file and runs every report on it
+     */
+    private List<ReportTable> analyse(Path input) throws IOException {
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(input.toString());
+        DataAnalyser analyser = new DataAnalyser(loader);
+        CountryDataset dataset = loader.getDataset();
+        String source = input.toString();
+        int from = fromYear != null ? fromYear : Integer.MIN_VALUE;
+        int to = toYear != null ? toYear : Integer.MAX_VALUE;
+        boolean windowed = fromYear != null || toYear != null;
+
+        List<ReportTable> tables = new ArrayList<>();
+        for (String report : reports) {
+            if (report.equals("averages")) {
+                ReportTable table = new ReportTable(source, report, List.of("country", "mean"));
+                if (windowed) {
+                    for (String country : dataset.countryNames()) {
+                        RangeStats stats = analyser.getRangeStats(country, from, to);
+                        if (!stats.isEmpty()) table.add(country, stats.getMean());
+                    }
+                } else {
+                    // country ids are in alphabetical order, so the aggregates table is already sorted
+                    CountryAggregates aggregates = analyser.getCountryAggregates(dataset);
+                    for (int id = 0; id < aggregates.countryCount(); id++) {
+                        if (aggregates.count(id) > 0) table.add(aggregates.countryName(id), aggregates.mean(id));
+                    }
+                }
+                tables.add(table);
+            } else if (report.equals("minmax")) {
+                ReportTable table = new ReportTable(source, report, List.of("country", "min", "max", "count"));
+                if (windowed) {
+                    for (String country : dataset.countryNames()) {
+                        RangeStats stats = analyser.getRangeStats(country, from, to);
+                        if (!stats.isEmpty()) table.add(country, stats.getMin(), stats.getMax(), stats.getCount());
+                    }
+                } else {
+                    CountryAggregates aggregates = analyser.getCountryAggregates(dataset);
+                    for (int id = 0; id < aggregates.countryCount(); id++) {
+                        if (aggregates.count(id) > 0) {
+                            table.add(aggregates.countryName(id), aggregates.min(id), aggregates.max(id), aggregates.count(id));
+                        }
+                    }
+                }
+                tables.add(table);
+            } else if (report.equals("ranking")) {
+                ReportTable table = new ReportTable(source, report, List.of("rank", "country", "mean"));
+                Ranking ranking = analyser.getRankingEngine(dataset)
+                    .top(RankingEngine.Metric.MEAN, from, to, top > 0 ? top : dataset.countryCount(), null);
+                for (int i = 0; i < ranking.size(); i++) {
+                    table.add(i + 1, ranking.countryName(i), ranking.value(i));
+                }
+                tables.add(table);
+            } else {
+                int year = Integer.parseInt(report.substring("year=".length()));
+                ReportTable table = new ReportTable(source, report, List.of("country", "year", "emission"));
+                for (DataRecord record : analyser.getEmissionsByYear(year)) {
+                    table.add(record.getCountry(), record.getYear(), record.getEmission());
+                }
+                tables.add(table);
+            }
+        }
+        return tables;
+    }
+
+    private static String baseName(Path input) {
+        String name = input.getFileName().toString();
+        return name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    private static int number(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(option + " needs a whole number, got " + value);
+        }
+    }
+}
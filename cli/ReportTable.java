@@ -0,0 +1,24 @@
+package cli;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One block of output: a report for one input file, as named columns and rows of values
+ */
+final class ReportTable {
+    final String source;
+    final String report;
+    final List<String> columns;
+    final List<Object[]> rows = new ArrayList<>();
+
+    ReportTable(String source, String report, List<String> columns) {
+        this.source = source;
+        this.report = report;
+        this.columns = columns;
+    }
+
+    void add(Object... values) {
+        rows.add(values);
+    }
+}
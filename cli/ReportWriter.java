@@ -0,0 +1,100 @@
+package cli;
+
+import data.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Writes report tables as CSV or JSON.
+ *
+ * CSV: a header row and then one line per row. On stdout each table starts with a "# file, report" comment
+ * line and ends with a blank line so several tables can share one stream.
+ * JSON: one object per table ({"source", "report", "rows": [{column: value}]}) on a single line, so a stream
+ * of tables can be read as JSON lines.
+ */
+final class ReportWriter {
+    enum Format { CSV, JSON }
+
+    private final Format format;
+
+    ReportWriter(Format format) {
+        this.format = format;
+    }
+
+    String extension() {
+        return format == Format.CSV ? "csv" : "json";
+    }
+
+    void write(ReportTable table, Writer out, boolean withBanner) throws IOException {
+        if (format == Format.CSV) {
+            writeCsv(table, out, withBanner);
+        } else {
+            writeJson(table, out);
+        }
+        out.flush();
+    }
+
+    private void writeCsv(ReportTable table, Writer out, boolean withBanner) throws IOException {
+        if (withBanner) {
+            out.write("# " + table.source + ", " + table.report + "\n");
+        }
+        for (int i = 0; i < table.columns.size(); i++) {
+            if (i > 0) out.write(',');
+            out.write(csvField(table.columns.get(i)));
+        }
+        out.write('\n');
+        for (Object[] row : table.rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) out.write(',');
+                out.write(csvField(format(row[i])));
+            }
+            out.write('\n');
+        }
+        if (withBanner) {
+            out.write('\n');
+        }
+    }
+
+    private void writeJson(ReportTable table, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter().beginObject()
+            .field("source", table.source)
+            .field("report", table.report)
+            .name("rows").beginArray();
+        for (Object[] row : table.rows) {
+            json.beginObject();
+            for (int i = 0; i < row.length; i++) {
+                json.name(table.columns.get(i));
+                jsonValue(json, row[i]);
+            }
+            json.endObject();
+        }
+        out.write(json.endArray().endObject().toString());
+        out.write('\n');
+    }
+
+    private static String format(Object value) {
+        if (value == null) return "";
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return Double.isNaN(d) ? "" : String.format(Locale.ROOT, "%.6f", d);
+        }
+        return value.toString();
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void jsonValue(JsonWriter json, Object value) {
+        if (value instanceof Double) {
+            json.value((Double) value);
+        } else if (value instanceof Number) {
+            json.value(((Number) value).longValue());
+        } else {
+            json.value(value == null ? null : value.toString());
+        }
+    }
+}
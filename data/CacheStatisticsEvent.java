@@ -0,0 +1,56 @@
+package data;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Percentage;
+
+/**
+ * Flight Recorder event written once a second for every registered cache, with its hit counts so far.
+ */
+@Name("climate.CacheStatistics")
+@Label("Cache Statistics")
+@Category("Climate")
+@Description("Hits, misses and size of a results cache")
+@Period("1 s")
+public final class CacheStatisticsEvent extends Event {
+    @Label("Cache")
+    String cache;
+
+    @Label("Hits")
+    long hits;
+
+    @Label("Misses")
+    long misses;
+
+    @Label("Evictions")
+    long evictions;
+
+    @Label("Entries")
+    int size;
+
+    @Label("Hit Ratio")
+    @Percentage
+    double hitRatio;
+
+    /**
+     * Starts reporting a cache to Flight Recorder and shows its hit ratio in Metrics as "cache.<name>.hitRatio"
+     */
+    public static void register(String name, LongLruCache<?> cache) {
+        Metrics.gauge("cache." + name + ".hitRatio", cache::hitRatio);
+        FlightRecorder.addPeriodicEvent(CacheStatisticsEvent.class, () -> {
+            CacheStatisticsEvent event = new CacheStatisticsEvent();
+            event.cache = name;
+            event.hits = cache.hits();
+            event.misses = cache.misses();
+            event.evictions = cache.evictions();
+            event.size = cache.size();
+            event.hitRatio = cache.hitRatio();
+            event.commit();
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package data;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Count, sum, min and max of the emissions of every country, in plain arrays indexed by country id (so the
+ * same order as CountryDataset.countryName, which is alphabetical). One instance answers both the averages
+ * and the min/max questions for the whole dataset and can be kept until a new file is loaded.
+ *
+ * It is worked out as a fork/join group by over the country column: the rows are split into ranges, every
+ * range sums into its own primitive accumulator and the accumulators are merged on the way back up. Because
+ * the dataset keeps each country's rows together, a range only ever touches a short run of ids, so each
+ * accumulator only covers those ids and merging costs next to nothing. The whole thing is one pass over
+ * the columns split across the cores.
+ */
+public final class CountryAggregates {
+    // below this many rows a range is summed on the current thread instead of being split again
+    private static final int MIN_SPLIT_ROWS = 1 << 16;
+
+    private final CountryDataset dataset;
+    private final int[] counts;
+    private final double[] sums;
+    private final double[] mins;
+    private final double[] maxes;
+
+    private CountryAggregates(CountryDataset dataset, int[] counts, double[] sums, double[] mins, double[] maxes) {
+        this.dataset = dataset;
+        this.counts = counts;
+        this.sums = sums;
+        this.mins = mins;
+        this.maxes = maxes;
+    }
+
+    public static CountryAggregates of(CountryDataset dataset) {
+        return of(dataset, ForkJoinPool.commonPool());
+    }
+
+    public static CountryAggregates of(CountryDataset dataset, ForkJoinPool pool) {
+        int countries = dataset.countryCount();
+        if (dataset.isEmpty()) {
+            return new CountryAggregates(dataset, new int[countries], new double[countries], nans(countries), nans(countries));
+        }
+        // a few ranges per worker so a slow thread can be helped out by the others
+        int splitRows = Math.max(MIN_SPLIT_ROWS, dataset.size() / (pool.getParallelism() * 4));
+        Accumulator total = pool.invoke(new GroupTask(dataset, 0, dataset.size(), splitRows));
+
+        // the merged accumulator covers every id that has rows, ids without rows keep count 0
+        int[] counts = new int[countries];
+        double[] sums = new double[countries];
+        double[] mins = nans(countries);
+        double[] maxes = nans(countries);
+        System.arraycopy(total.counts, 0, counts, total.firstId, total.counts.length);
+        System.arraycopy(total.sums, 0, sums, total.firstId, total.sums.length);
+        for (int k = 0; k < total.counts.length; k++) {
+            // ids inside the range can still be empty, their accumulator slots hold the +-Infinity starting values
+            if (total.counts[k] > 0) {
+                mins[total.firstId + k] = total.mins[k];
+                maxes[total.firstId + k] = total.maxes[k];
+            }
+        }
+        return new CountryAggregates(dataset, counts, sums, mins, maxes);
+    }
+
+    private static double[] nans(int length) {
+        double[] values = new double[length];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+    public int countryCount() { return counts.length; }
+    public String countryName(int id) { return dataset.countryName(id); }
+
+    public int count(int id) { return counts[id]; }
+    public double sum(int id) { return sums[id]; }
+    public double mean(int id) { return counts[id] == 0 ? 0 : sums[id] / counts[id]; }
+    // min and max are NaN for a country without rows (and mean is 0), check count first. A NaN row makes
+    // min, max and sum NaN.
+    public double min(int id) { return mins[id]; }
+    public double max(int id) { return maxes[id]; }
+
+    /**
+     * Sums one range of rows, splitting it in half while it is still big
+     */
+    @SuppressWarnings("serial")
+    private static final class GroupTask extends RecursiveTask<Accumulator> {
+        private final CountryDataset dataset;
+        private final int from;
+        private final int to;
+        private final int splitRows;
+
+        GroupTask(CountryDataset dataset, int from, int to, int splitRows) {
+            this.dataset = dataset;
+            this.from = from;
+            this.to = to;
+            this.splitRows = splitRows;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (to - from <= splitRows) {
+                return Accumulator.sum(dataset, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            GroupTask right = new GroupTask(dataset, middle, to, splitRows);
+            right.fork();
+            Accumulator left = new GroupTask(dataset, from, middle, splitRows).compute();
+            return left.merge(right.join());
+        }
+    }
+
+    /**
+     * Totals for the ids firstId .. firstId + length - 1
+     */
+    private static final class Accumulator {
+        final int firstId;
+        final int[] counts;
+        final double[] sums;
+        final double[] mins;
+        final double[] maxes;
+
+        Accumulator(int firstId, int length) {
+            this.firstId = firstId;
+            this.counts = new int[length];
+            this.sums = new double[length];
+            this.mins = new double[length];
+            this.maxes = new double[length];
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        }
+
+        int lastId() { return firstId + counts.length - 1; }
+
+        static Accumulator sum(CountryDataset dataset, int from, int to) {
+            int[] countries = dataset.countryColumn();
+            double[] emissions = dataset.emissions();
+            // the rows are grouped by country, so the ids in a range run from the first row's to the last row's
+            int firstId = countries[from];
+            Accumulator acc = new Accumulator(firstId, countries[to - 1] - firstId + 1);
+            int[] counts = acc.counts;
+            double[] sums = acc.sums;
+            double[] mins = acc.mins;
+            double[] maxes = acc.maxes;
+            for (int i = from; i < to; i++) {
+                int slot = countries[i] - firstId;
+                double x = emissions[i];
+                counts[slot]++;
+                sums[slot] += x;
+                // Math.min/max keep a NaN row, like summarizingDouble did, so min, max and sum are all NaN together
+                mins[slot] = Math.min(mins[slot], x);
+                maxes[slot] = Math.max(maxes[slot], x);
+            }
+            return acc;
+        }
+
+        /**
+         * Adds two accumulators together, the result covers the ids of both
+         */
+        Accumulator merge(Accumulator other) {
+            int first = Math.min(firstId, other.firstId);
+            int last = Math.max(lastId(), other.lastId());
+            Accumulator merged = new Accumulator(first, last - first + 1);
+            merged.add(this);
+            merged.add(other);
+            return merged;
+        }
+
+        private void add(Accumulator part) {
+            int offset = part.firstId - firstId;
+            for (int k = 0; k < part.counts.length; k++) {
+                if (part.counts[k] == 0) continue;
+                int slot = offset + k;
+                counts[slot] += part.counts[k];
+                sums[slot] += part.sums[k];
+                mins[slot] = Math.min(mins[slot], part.mins[k]);
+                maxes[slot] = Math.max(maxes[slot], part.maxes[k]);
+            }
+        }
+    }
+}
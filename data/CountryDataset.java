@@ -0,0 +1,308 @@
+package data;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Column based store for a loaded CSV. Instead of one DataRecord object per row the rows are kept in three
+ * primitive arrays (country id, year, emission) sorted by country and then by year, and every country name is
+ * only stored once in the dictionary. This keeps big files small on the heap and means the hot loops in the
+ * analyser and the UI never have to create objects just to read a value.
+ */
+public final class CountryDataset {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final CountryDataset EMPTY = new Builder().build();
+
+    private final String[] countries;          // id -> name, sorted alphabetically so ids are stable
+    private final Map<String, Integer> countryIds;
+    private final int[] countryColumn;
+    private final int[] countryStarts;         // rows of country id sit in [countryStarts[id], countryStarts[id + 1])
+    private final int[] years;
+    private final double[] emissions;
+    private final int size;
+    private final int minYear;
+    private final int maxYear;
+    private final long version = VERSIONS.incrementAndGet();
+
+    private CountryDataset(String[] countries, int[] countryColumn, int[] countryStarts, int[] years, double[] emissions, int size) {
+        this.countries = countries;
+        this.countryColumn = countryColumn;
+        this.countryStarts = countryStarts;
+        this.years = years;
+        this.emissions = emissions;
+        this.size = size;
+
+        this.countryIds = new HashMap<>(countries.length * 2);
+        for (int id = 0; id < countries.length; id++) {
+            countryIds.put(countries[id], id);
+        }
+
+        int lo = Integer.MAX_VALUE;
+        int hi = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            lo = Math.min(lo, years[i]);
+            hi = Math.max(hi, years[i]);
+        }
+        this.minYear = size == 0 ? 0 : lo;
+        this.maxYear = size == 0 ? 0 : hi;
+    }
+
+    public static CountryDataset empty() { return EMPTY; }
+
+    /**
+     * Wraps columns that are already sorted by country id then year (used when reading a snapshot)
+     */
+    static CountryDataset fromColumns(String[] countries, int[] countryColumn, int[] countryStarts, int[] years, double[] emissions, int size) {
+        return new CountryDataset(countries, countryColumn, countryStarts, years, emissions, size);
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int countryCount() { return countries.length; }
+    public int minYear() { return minYear; }
+    public int maxYear() { return maxYear; }
+
+    /**
+     * Unique number for every dataset that gets built, caches use it to notice a new file was loaded
+     */
+    public long version() { return version; }
+
+    public String countryName(int id) { return countries[id]; }
+
+    /**
+     * Looks up the dictionary id of a country, or -1 if the country is not in the dataset
+     */
+    public int countryId(String country) {
+        Integer id = country == null ? null : countryIds.get(country);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * All country names in id order (alphabetical)
+     */
+    public List<String> countryNames() {
+        return Collections.unmodifiableList(Arrays.asList(countries));
+    }
+
+    public int countryAt(int row) { return countryColumn[row]; }
+    public int yearAt(int row) { return years[row]; }
+    public double emissionAt(int row) { return emissions[row]; }
+
+    /**
+     * Builds a DataRecord for one row, only meant for callers that really need an object
+     */
+    public DataRecord record(int row) {
+        return new DataRecord(countries[countryColumn[row]], years[row], emissions[row]);
+    }
+
+    /**
+     * Read only list view over the rows, each DataRecord is made on demand when it is asked for
+     */
+    public List<DataRecord> asRecords() {
+        return new AbstractList<DataRecord>() {
+            @Override
+            public DataRecord get(int index) {
+                Objects.checkIndex(index, size);
+                return record(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * First row of a country, its rows run up to countryEnd(id)
+     */
+    public int countryStart(int id) { return countryStarts[id]; }
+    public int countryEnd(int id) { return countryStarts[id + 1]; }
+
+    /**
+     * Returns the rows of one country between minYear and maxYear (both inclusive). Because the columns are sorted
+     * by country then year the matching rows always sit next to each other, so the slice is just a start and end.
+     */
+    public DataSlice slice(String country, int minYear, int maxYear) {
+        int id = countryId(country);
+        if (id < 0) return new DataSlice(this, 0, 0);
+        return slice(id, minYear, maxYear);
+    }
+
+    /**
+     * Same as slice(String, int, int) for a country id. The country's rows come straight from the offset index and
+     * the year bounds are binary searched inside them, so this is O(log n) whatever the size of the dataset.
+     */
+    public DataSlice slice(int countryId, int minYear, int maxYear) {
+        int start = countryStarts[countryId];
+        int end = countryStarts[countryId + 1];
+        int from = firstYearAtLeast(start, end, minYear);
+        int to = maxYear == Integer.MAX_VALUE ? end : firstYearAtLeast(from, end, maxYear + 1);
+        return new DataSlice(this, from, to);
+    }
+
+    /**
+     * Lower bound search: first row in [from, to) with a year >= year, or to if there isnt one
+     */
+    int firstYearAtLeast(int from, int to, int year) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (years[mid] < year) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // package level access for the analyser loops
+    int[] countryColumn() { return countryColumn; }
+    int[] countryStarts() { return countryStarts; }
+    int[] years() { return years; }
+    double[] emissions() { return emissions; }
+
+    /**
+     * Collects rows in file order into growing primitive arrays, then sorts them by country and year in build()
+     */
+    public static final class Builder {
+        private final Map<String, Integer> localIds = new HashMap<>();
+        private final List<String> localNames = new ArrayList<>();
+        private int[] countryColumn;
+        private int[] years;
+        private double[] emissions;
+        private int size;
+
+        public Builder() {
+            this(1024);
+        }
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            countryColumn = new int[capacity];
+            years = new int[capacity];
+            emissions = new double[capacity];
+        }
+
+        public int size() { return size; }
+
+        /**
+         * Returns the builder's id for a country name, adding it to the dictionary the first time it is seen
+         */
+        public int countryId(String country) {
+            Integer id = localIds.get(country);
+            if (id == null) {
+                id = localNames.size();
+                localIds.put(country, id);
+                localNames.add(country);
+            }
+            return id;
+        }
+
+        public Builder add(String country, int year, double emission) {
+            return add(countryId(country), year, emission);
+        }
+
+        /**
+         * Appends a row using an id previously returned by countryId(String)
+         */
+        public Builder add(int countryId, int year, double emission) {
+            if (size == years.length) {
+                int capacity = years.length + (years.length >> 1);
+                countryColumn = Arrays.copyOf(countryColumn, capacity);
+                years = Arrays.copyOf(years, capacity);
+                emissions = Arrays.copyOf(emissions, capacity);
+            }
+            countryColumn[size] = countryId;
+            years[size] = year;
+            emissions[size] = emission;
+            size++;
+            return this;
+        }
+
+        /**
+         * Appends every row of another builder after this one's rows, translating its country ids into ours.
+         * Used to join the chunks of a parallel load back together in file order.
+         */
+        public Builder addAll(Builder other) {
+            int[] remap = new int[other.localNames.size()];
+            for (int id = 0; id < remap.length; id++) {
+                remap[id] = countryId(other.localNames.get(id));
+            }
+
+            int needed = size + other.size;
+            if (needed > years.length) {
+                countryColumn = Arrays.copyOf(countryColumn, needed);
+                years = Arrays.copyOf(years, needed);
+                emissions = Arrays.copyOf(emissions, needed);
+            }
+            for (int i = 0; i < other.size; i++) {
+                countryColumn[size + i] = remap[other.countryColumn[i]];
+            }
+            System.arraycopy(other.years, 0, years, size, other.size);
+            System.arraycopy(other.emissions, 0, emissions, size, other.size);
+            size = needed;
+            return this;
+        }
+
+        public CountryDataset build() {
+            // give countries alphabetical ids so the order doesnt depend on the order of the file
+            String[] names = localNames.toArray(new String[0]);
+            Arrays.sort(names);
+            int[] remap = new int[names.length];
+            for (int id = 0; id < names.length; id++) {
+                remap[localIds.get(names[id])] = id;
+            }
+
+            // counting sort on country keeps rows of the same country in file order
+            int[] starts = new int[names.length + 1];
+            for (int i = 0; i < size; i++) {
+                starts[remap[countryColumn[i]] + 1]++;
+            }
+            for (int id = 0; id < names.length; id++) {
+                starts[id + 1] += starts[id];
+            }
+            int[] next = Arrays.copyOf(starts, names.length);
+            int[] sortedCountries = new int[size];
+            int[] sortedYears = new int[size];
+            double[] sortedEmissions = new double[size];
+            for (int i = 0; i < size; i++) {
+                int id = remap[countryColumn[i]];
+                int at = next[id]++;
+                sortedCountries[at] = id;
+                sortedYears[at] = years[i];
+                sortedEmissions[at] = emissions[i];
+            }
+
+            for (int id = 0; id < names.length; id++) {
+                sortByYear(sortedYears, sortedEmissions, starts[id], starts[id + 1]);
+            }
+            return new CountryDataset(names, sortedCountries, starts, sortedYears, sortedEmissions, size);
+        }
+
+        /**
+         * Stable sort of one country's rows by year, skipped when the file was already in order (the normal case)
+         */
+        private static void sortByYear(int[] years, double[] emissions, int from, int to) {
+            boolean sorted = true;
+            for (int i = from + 1; i < to && sorted; i++) {
+                sorted = years[i - 1] <= years[i];
+            }
+            if (sorted) return;
+
+            // year in the high bits and position in the low bits, so equal years keep their file order
+            long[] keys = new long[to - from];
+            for (int i = from; i < to; i++) {
+                keys[i - from] = ((long) years[i] << 32) | (i - from);
+            }
+            Arrays.sort(keys);
+            double[] values = Arrays.copyOfRange(emissions, from, to);
+            for (int k = 0; k < keys.length; k++) {
+                years[from + k] = (int) (keys[k] >> 32);
+                emissions[from + k] = values[(int) keys[k]];
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package data;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps the raw UTF-8 bytes of a country field to a builder id without making a String for every row.
+ * A String is only decoded the first time a country is seen, after that a lookup is a hash and a byte compare.
+ */
+final class CountryDictionary {
+    private final CountryDataset.Builder builder;
+    private int[] table = new int[512];        // entry index + 1, 0 means empty slot
+    private byte[][] keys = new byte[256][];
+    private int[] hashes = new int[256];
+    private int[] ids = new int[256];
+    private int count;
+
+    CountryDictionary(CountryDataset.Builder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Returns the builder id for the bytes in buffer[from, to)
+     */
+    int lookup(ByteBuffer buffer, int from, int to) {
+        int hash = 1;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && sameBytes(keys[entry], buffer, from, to)) {
+                return ids[entry];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return insert(slot, hash, buffer, from, to);
+    }
+
+    private int insert(int slot, int hash, ByteBuffer buffer, int from, int to) {
+        byte[] key = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            key[i - from] = buffer.get(i);
+        }
+        int id = builder.countryId(new String(key, StandardCharsets.UTF_8));
+
+        if (count == keys.length) {
+            keys = Arrays.copyOf(keys, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+            ids = Arrays.copyOf(ids, count * 2);
+        }
+        keys[count] = key;
+        hashes[count] = hash;
+        ids[count] = id;
+        table[slot] = ++count;
+
+        // keep the table at most half full so probe runs stay short
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int entry = 0; entry < count; entry++) {
+            int slot = mix(hashes[entry]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry + 1;
+        }
+    }
+
+    private static boolean sameBytes(byte[] key, ByteBuffer buffer, int from, int to) {
+        if (key.length != to - from) return false;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != buffer.get(from + i)) return false;
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
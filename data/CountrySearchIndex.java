@@ -0,0 +1,254 @@
+package data;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Search over country names for the search boxes, built once per dataset.
+ *
+ * Every name is normalised up front (accents removed, lower case) and every one, two and three letter chunk
+ * of it is indexed, so a query only has to look at the names that contain its rarest chunk. For queries of
+ * up to three letters that list already is the answer. Typing one more letter narrows the previous result
+ * instead of starting again. Matches are ranked: names starting with the query first, then names with a
+ * word starting with it, then the rest, each group in alphabetical order.
+ *
+ * The chunk table is primitive arrays (open addressing on the packed chunk, then one flat array of ids), so
+ * building it for tens of thousands of names doesnt box anything.
+ */
+public final class CountrySearchIndex {
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final int MAX_GRAM = 3;
+    private static final long EMPTY = -1;
+
+    private final List<String> names;
+    private final String[] keys;
+    private final int[] everything;
+
+    // chunk -> code lookup
+    private long[] slotGrams;
+    private int[] slotCodes;
+    private int gramCount;
+
+    // ids of the names containing chunk code c are postingIds[postingStarts[c] .. postingStarts[c + 1])
+    private final int[] postingStarts;
+    private final int[] postingIds;
+
+    /**
+     * The matches for one query, see search(String, Result)
+     */
+    public static final class Result {
+        private final String key;
+        private final int[] matches;       // unranked, in name order, used to narrow the next query
+        private final int[] ranked;
+
+        private Result(String key, int[] matches, int[] ranked) {
+            this.key = key;
+            this.matches = matches;
+            this.ranked = ranked;
+        }
+
+        public String getKey() { return key; }
+        public int size() { return ranked.length; }
+    }
+
+    public CountrySearchIndex(List<String> names) {
+        this.names = names;
+        this.keys = new String[names.size()];
+        this.everything = new int[names.size()];
+
+        slotGrams = new long[1024];
+        slotCodes = new int[1024];
+        Arrays.fill(slotGrams, EMPTY);
+
+        // first pass: give every chunk a code and remember which codes each name has (once per name)
+        int[] counts = new int[256];
+        int[] lastName = new int[256];
+        int[] nameCodes = new int[1024];
+        int[] nameCodeEnds = new int[keys.length];
+        int total = 0;
+        for (int id = 0; id < keys.length; id++) {
+            String key = normalize(names.get(id));
+            keys[id] = key;
+            everything[id] = id;
+            for (int length = 1; length <= MAX_GRAM; length++) {
+                for (int i = 0; i + length <= key.length(); i++) {
+                    int code = codeFor(gram(key, i, length), true);
+                    if (code >= counts.length) {
+                        counts = Arrays.copyOf(counts, counts.length * 2);
+                        lastName = Arrays.copyOf(lastName, lastName.length * 2);
+                    }
+                    if (counts[code] > 0 && lastName[code] == id) continue;
+                    counts[code]++;
+                    lastName[code] = id;
+                    if (total == nameCodes.length) nameCodes = Arrays.copyOf(nameCodes, total * 2);
+                    nameCodes[total++] = code;
+                }
+            }
+            nameCodeEnds[id] = total;
+        }
+
+        // second pass: lay the id lists out one after the other
+        postingStarts = new int[gramCount + 1];
+        for (int code = 0; code < gramCount; code++) {
+            postingStarts[code + 1] = postingStarts[code] + counts[code];
+        }
+        postingIds = new int[total];
+        int[] fill = Arrays.copyOf(postingStarts, gramCount);
+        int at = 0;
+        for (int id = 0; id < keys.length; id++) {
+            for (; at < nameCodeEnds[id]; at++) {
+                postingIds[fill[nameCodes[at]]++] = id;
+            }
+        }
+    }
+
+    /**
+     * Lower case with accents and other combining marks removed, so "cote d'ivoire" finds "Côte d'Ivoire".
+     * Only leading spaces are dropped: a trailing space is part of the query, so "united " means the word has
+     * to end there.
+     */
+    public static String normalize(String text) {
+        if (text == null) return "";
+        boolean ascii = true;
+        for (int i = 0; i < text.length() && ascii; i++) {
+            ascii = text.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            text = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        }
+        return text.toLowerCase(Locale.ROOT).stripLeading();
+    }
+
+    public Result search(String query) {
+        return search(query, null);
+    }
+
+    /**
+     * Finds the names containing the query. If the query just extends the one behind previous, only the
+     * previous matches are checked again.
+     */
+    public Result search(String query, Result previous) {
+        String key = normalize(query);
+        if (key.isEmpty()) return new Result(key, everything, everything);
+
+        int[] matches;
+        if (key.length() <= MAX_GRAM) {
+            matches = posting(gram(key, 0, key.length()));
+        } else {
+            int[] candidates = previous != null && !previous.key.isEmpty() && key.startsWith(previous.key)
+                ? previous.matches : rarestPosting(key);
+            matches = new int[candidates.length];
+            int count = 0;
+            for (int id : candidates) {
+                if (keys[id].contains(key)) {
+                    matches[count++] = id;
+                }
+            }
+            matches = Arrays.copyOf(matches, count);
+        }
+        return new Result(key, matches, rank(key, matches));
+    }
+
+    /**
+     * The names of a result in ranked order, at most limit of them
+     */
+    public List<String> names(Result result, int limit) {
+        int count = Math.min(limit, result.ranked.length);
+        List<String> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(names.get(result.ranked[i]));
+        }
+        return list;
+    }
+
+    private int[] rarestPosting(String key) {
+        int[] best = null;
+        for (int i = 0; i + MAX_GRAM <= key.length(); i++) {
+            int[] posting = posting(gram(key, i, MAX_GRAM));
+            if (best == null || posting.length < best.length) {
+                best = posting;
+            }
+        }
+        return best;
+    }
+
+    private int[] posting(long gram) {
+        int code = codeFor(gram, false);
+        if (code < 0) return new int[0];
+        return Arrays.copyOfRange(postingIds, postingStarts[code], postingStarts[code + 1]);
+    }
+
+    /**
+     * Whole name prefix matches, then word prefix matches, then the rest, keeping name order inside each group
+     */
+    private int[] rank(String key, int[] matches) {
+        int[] ranked = new int[matches.length];
+        byte[] group = new byte[matches.length];
+        int[] groupSizes = new int[3];
+        for (int i = 0; i < matches.length; i++) {
+            String name = keys[matches[i]];
+            group[i] = (byte) (name.startsWith(key) ? 0 : startsWord(name, key) ? 1 : 2);
+            groupSizes[group[i]]++;
+        }
+        int[] next = { 0, groupSizes[0], groupSizes[0] + groupSizes[1] };
+        for (int i = 0; i < matches.length; i++) {
+            ranked[next[group[i]]++] = matches[i];
+        }
+        return ranked;
+    }
+
+    private static boolean startsWord(String name, String key) {
+        for (int at = name.indexOf(key); at >= 0; at = name.indexOf(key, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(name.charAt(at - 1))) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Packs up to three chars and the length into one long (never -1)
+     */
+    private static long gram(String key, int from, int length) {
+        long gram = length;
+        for (int i = 0; i < length; i++) {
+            gram = (gram << 16) | key.charAt(from + i);
+        }
+        return gram;
+    }
+
+    private int codeFor(long gram, boolean add) {
+        int mask = slotGrams.length - 1;
+        int slot = (int) ((gram * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (slotGrams[slot] != EMPTY) {
+            if (slotGrams[slot] == gram) return slotCodes[slot];
+            slot = (slot + 1) & mask;
+        }
+        if (!add) return -1;
+
+        slotGrams[slot] = gram;
+        slotCodes[slot] = gramCount++;
+        if (gramCount * 2 > slotGrams.length) {
+            grow();
+        }
+        return gramCount - 1;
+    }
+
+    private void grow() {
+        long[] oldGrams = slotGrams;
+        int[] oldCodes = slotCodes;
+        slotGrams = new long[oldGrams.length * 2];
+        slotCodes = new int[oldGrams.length * 2];
+        Arrays.fill(slotGrams, EMPTY);
+        int mask = slotGrams.length - 1;
+        for (int i = 0; i < oldGrams.length; i++) {
+            if (oldGrams[i] == EMPTY) continue;
+            int slot = (int) ((oldGrams[i] * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (slotGrams[slot] != EMPTY) slot = (slot + 1) & mask;
+            slotGrams[slot] = oldGrams[i];
+            slotCodes[slot] = oldCodes[i];
+        }
+    }
+}
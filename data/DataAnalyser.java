@@ -1,34 +1,231 @@
 package data;
 
 import java.util.*;
-import java.util.stream.*;
 
 public class DataAnalyser {
     private DataLoader loader;
 
+    // indexes for the dataset they were built from, thrown away when a new file is loaded
+    private CountryDataset indexedDataset;
+    private RangeQueryEngine rangeEngine;
+    private OrderStatistics orderStatistics;
+    private CountryAggregates aggregates;
+    private YearIndex yearIndex;
+    private RankingEngine rankingEngine;
+
     public DataAnalyser(DataLoader loader) {
         this.loader = loader;
     }
-    // via some different java util imports i can pull the data from the excel spreadsheet (using the dataloader) and sort it into a better format.
+
+    /**
+     * Returns the range query tables for the current dataset, building them the first time they are needed
+     */
+    public RangeQueryEngine getRangeEngine() {
+        return getRangeEngine(loader.getDataset());
+    }
+
+    public synchronized RangeQueryEngine getRangeEngine(CountryDataset dataset) {
+        useDataset(dataset);
+        if (rangeEngine == null) {
+            rangeEngine = new RangeQueryEngine(dataset);
+        }
+        return rangeEngine;
+    }
+
+    /**
+     * Returns the median / percentile index for the current dataset, building it the first time it is needed
+     */
+    public OrderStatistics getOrderStatistics() {
+        return getOrderStatistics(loader.getDataset());
+    }
+
+    public synchronized OrderStatistics getOrderStatistics(CountryDataset dataset) {
+        useDataset(dataset);
+        if (orderStatistics == null) {
+            orderStatistics = new OrderStatistics(dataset);
+        }
+        return orderStatistics;
+    }
+
+    /**
+     * Count, sum, mean, min and max for every country, worked out in parallel the first time and then reused
+     */
+    public CountryAggregates getCountryAggregates() {
+        return getCountryAggregates(loader.getDataset());
+    }
+
+    public synchronized CountryAggregates getCountryAggregates(CountryDataset dataset) {
+        useDataset(dataset);
+        if (aggregates == null) {
+            aggregates = CountryAggregates.of(dataset);
+        }
+        return aggregates;
+    }
+
+    /**
+     * The by year view of the dataset (each year sorted by emission), built the first time it is needed
+     */
+    public YearIndex getYearIndex() {
+        return getYearIndex(loader.getDataset());
+    }
+
+    public synchronized YearIndex getYearIndex(CountryDataset dataset) {
+        useDataset(dataset);
+        if (yearIndex == null) {
+            yearIndex = new YearIndex(dataset);
+        }
+        return yearIndex;
+    }
+
+    /**
+     * Top / bottom K rankings over any year window, built on the range tables the first time it is needed
+     */
+    public RankingEngine getRankingEngine() {
+        return getRankingEngine(loader.getDataset());
+    }
+
+    public synchronized RankingEngine getRankingEngine(CountryDataset dataset) {
+        RangeQueryEngine engine = getRangeEngine(dataset);
+        if (rankingEngine == null) {
+            rankingEngine = new RankingEngine(engine);
+        }
+        return rankingEngine;
+    }
+
+    // the indexes are only kept for one dataset, asking for another one (a new file was loaded) drops them
+    private void useDataset(CountryDataset dataset) {
+        if (indexedDataset != dataset) {
+            indexedDataset = dataset;
+            rangeEngine = null;
+            orderStatistics = null;
+            aggregates = null;
+            yearIndex = null;
+            rankingEngine = null;
+        }
+    }
+
+    /**
+     * Mean, std dev, min, max, count, first and last for a country between two years, answered from the range tables
+     */
+    public RangeStats getRangeStats(String country, int minYear, int maxYear) {
+        RangeQueryEngine engine = getRangeEngine();
+        int id = engine.getDataset().countryId(country);
+        return id < 0 ? RangeStats.EMPTY : engine.query(id, minYear, maxYear);
+    }
+
+    public RangeStats getRangeStats(DataSlice slice) {
+        return getRangeEngine(slice.getDataset()).query(slice);
+    }
+
+    /**
+     * Everything the stats panel shows for one country and year window, worked out in a single pass over the
+     * primitive columns: Welford's running mean/variance (stable even for long series), min and max with the
+     * year they happened, the first and last values and the total change between them.
+     */
+    public RangeStats getCountryStats(DataSlice slice) {
+        if (slice.isEmpty()) return RangeStats.EMPTY;
+        CountryDataset dataset = slice.getDataset();
+        double[] emissions = dataset.emissions();
+        int[] years = dataset.years();
+        int from = slice.from();
+        int to = slice.to();
+
+        double mean = 0;
+        double m2 = 0;
+        int minRow = from;
+        int maxRow = from;
+        int n = 0;
+        for (int i = from; i < to; i++) {
+            double x = emissions[i];
+            n++;
+            double delta = x - mean;
+            mean += delta / n;
+            m2 += delta * (x - mean);
+            if (x < emissions[minRow]) minRow = i;
+            if (x > emissions[maxRow]) maxRow = i;
+        }
+
+        double variance = n > 1 ? m2 / (n - 1) : 0;
+        return new RangeStats(n, mean, variance,
+            emissions[minRow], years[minRow], emissions[maxRow], years[maxRow],
+            emissions[from], years[from], emissions[to - 1], years[to - 1]);
+    }
+
+    /**
+     * The single pass stats together with the median, quartiles and P10/P90 from the order statistics index
+     */
+    public WindowSummary getWindowSummary(DataSlice slice) {
+        if (slice.isEmpty()) return WindowSummary.EMPTY;
+        OrderStatistics order = getOrderStatistics(slice.getDataset());
+        return new WindowSummary(getCountryStats(slice),
+            order.median(slice),
+            order.percentile(slice, 0.25),
+            order.percentile(slice, 0.75),
+            order.percentile(slice, 0.10),
+            order.percentile(slice, 0.90));
+    }
+
+    public RangeStats getCountryStats(String country, int minYear, int maxYear) {
+        return getCountryStats(loader.getDataset().slice(country, minYear, maxYear));
+    }
+
+    // both of these are read off the aggregates table, which is one parallel pass over the columns shared by
+    // the two of them. Callers that can work with country ids should use getCountryAggregates() directly.
     public Map<String, Double> getAverageEmissions() {
-        return loader.getData().stream()
-                .collect(Collectors.groupingBy(
-                        DataRecord::getCountry,
-                        Collectors.averagingDouble(DataRecord::getEmission)
-                ));
+        CountryAggregates table = getCountryAggregates();
+        Map<String, Double> averages = new HashMap<>(table.countryCount() * 4 / 3 + 1);
+        for (int id = 0; id < table.countryCount(); id++) {
+            if (table.count(id) > 0) {
+                averages.put(table.countryName(id), table.mean(id));
+            }
+        }
+        return averages;
     }
 
+    /**
+     * Every country's value in one year, in alphabetical country order. One binary search per country, see
+     * getEmissionsByYearRanked for the same values sorted by emission.
+     */
     public List<DataRecord> getEmissionsByYear(int year) {
-        return loader.getData().stream()
-                .filter(record -> record.getYear() == year)
-                .collect(Collectors.toList());
+        CountryDataset dataset = loader.getDataset();
+        List<DataRecord> records = new ArrayList<>();
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            DataSlice slice = dataset.slice(id, year, year);
+            for (int i = slice.from(); i < slice.to(); i++) {
+                records.add(dataset.record(i));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Every country's value in one year, highest first (equal values in alphabetical country order). The list
+     * is a read only view over the year index, the records are only made as they are read.
+     */
+    public List<DataRecord> getEmissionsByYearRanked(int year) {
+        YearSlice slice = getYearIndex().year(year);
+        return new AbstractList<DataRecord>() {
+            @Override
+            public DataRecord get(int index) {
+                Objects.checkIndex(index, slice.size());
+                return slice.record(slice.size() - 1 - index);
+            }
+
+            @Override
+            public int size() {
+                return slice.size();
+            }
+        };
     }
 
     public Map<String, DoubleSummaryStatistics> getMinMaxEmissions() {
-        return loader.getData().stream()
-                .collect(Collectors.groupingBy(
-                        DataRecord::getCountry,
-                        Collectors.summarizingDouble(DataRecord::getEmission)
-                ));
+        CountryAggregates table = getCountryAggregates();
+        Map<String, DoubleSummaryStatistics> stats = new HashMap<>(table.countryCount() * 4 / 3 + 1);
+        for (int id = 0; id < table.countryCount(); id++) {
+            if (table.count(id) > 0) {
+                stats.put(table.countryName(id), new DoubleSummaryStatistics(table.count(id), table.min(id), table.max(id), table.sum(id)));
+            }
+        }
+        return stats;
     }
 }
@@ -0,0 +1,118 @@
+package data;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+
+public class DataLoader {
+    /**
+     * How the CSV gets read. MAPPED memory maps the file and parses the bytes directly (fast, almost no garbage),
+     * PARALLEL does the same but splits the file across every core, and BUFFERED is the original line by line
+     * reader that is kept around to compare against.
+     */
+    public enum ParseMode { MAPPED, PARALLEL, BUFFERED }
+
+    // files smaller than this load faster on one thread than it takes to start the others
+    private static final long PARALLEL_THRESHOLD = 32L << 20;
+
+    private volatile CountryDataset dataset = CountryDataset.empty();
+    private List<String> headers = new ArrayList<>();
+   /*The loadCSV method is used when the user clicks on the button in the program (the call is inside MainApp) and then
+    *  it checks if the document is the correct format, reads each row straight into the columns of a CountryDataset
+    *  and only swaps it in once the whole file is read, so the old data stays usable if the file is broken.
+    *  After the first load a binary snapshot is saved, so opening the same file again is almost instant.
+    */
+    public void loadCSV(String path) throws IOException {
+        // a snapshot from an earlier load of the same unchanged file skips the parsing completely
+        long bytes = new File(path).length();
+        LoadPhaseEvent phase = LoadPhaseEvent.start(path, "snapshot", bytes);
+        DatasetSnapshot snapshot = DatasetSnapshot.open(Paths.get(path));
+        if (snapshot != null) {
+            headers = snapshot.headers();
+            dataset = snapshot.dataset();
+            recordRate(dataset.size(), phase.finish(dataset.size()));
+            return;
+        }
+        phase.finish(0);
+
+        boolean large = bytes >= PARALLEL_THRESHOLD;
+        loadCSV(path, large && Runtime.getRuntime().availableProcessors() > 1 ? ParseMode.PARALLEL : ParseMode.MAPPED);
+        phase = LoadPhaseEvent.start(path, "save", bytes);
+        DatasetSnapshot.save(Paths.get(path), headers, dataset);
+        phase.finish(dataset.size());
+    }
+
+    public void loadCSV(String path, ParseMode mode) throws IOException {
+        if (mode == ParseMode.PARALLEL) {
+            loadCSVParallel(path, Runtime.getRuntime().availableProcessors());
+            return;
+        }
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        List<String> newHeaders;
+        LoadPhaseEvent phase = LoadPhaseEvent.start(path, "parse", new File(path).length());
+        if (mode == ParseMode.MAPPED) {
+            newHeaders = MappedCsvParser.parse(Paths.get(path), builder);
+        } else {
+            newHeaders = readBuffered(path, builder);
+        }
+        long parseNanos = phase.finish(builder.size());
+        headers = newHeaders;
+        dataset = build(path, builder, parseNanos);
+    }
+
+    /**
+     * Loads the file using the given number of worker threads, the result is the same as a single threaded load
+     */
+    public void loadCSVParallel(String path, int threads) throws IOException {
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        LoadPhaseEvent phase = LoadPhaseEvent.start(path, "parse", new File(path).length());
+        List<String> newHeaders = MappedCsvParser.parseParallel(Paths.get(path), builder, Math.max(1, threads));
+        long parseNanos = phase.finish(builder.size());
+        headers = newHeaders;
+        dataset = build(path, builder, parseNanos);
+    }
+
+    // sorting the rows into the columns is timed as its own phase, rows per second covers parse and build together
+    private CountryDataset build(String path, CountryDataset.Builder builder, long parseNanos) {
+        LoadPhaseEvent phase = LoadPhaseEvent.start(path, "build", 0);
+        CountryDataset built = builder.build();
+        recordRate(built.size(), parseNanos + phase.finish(built.size()));
+        return built;
+    }
+
+    private static void recordRate(int rows, long nanos) {
+        Metrics.set("load.rows", rows);
+        Metrics.set("load.rowsPerSecond", nanos > 0 ? rows / (nanos / 1e9) : 0);
+    }
+
+    private List<String> readBuffered(String path, CountryDataset.Builder builder) throws IOException {
+        List<String> newHeaders = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+            String line = br.readLine();
+            if (line != null) {
+                if (line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                newHeaders = Arrays.asList(line.split(","));
+            }
+            while ((line = br.readLine()) != null) {
+                String[] tokens = line.split(",");
+                if (tokens.length >= 3) {
+                    String country = tokens[0];
+                    int year = Integer.parseInt(tokens[1]);
+                    double emission = Double.parseDouble(tokens[2]);
+                    builder.add(country, year, emission);
+                }
+            }
+        }
+        return newHeaders;
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+    public List<DataRecord> getData() { return dataset.asRecords(); }
+    public List<String> getHeaders() { return headers; }
+    public Set<String> getCountries() {
+        return new LinkedHashSet<>(dataset.countryNames());
+    }
+}
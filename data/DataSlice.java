@@ -0,0 +1,26 @@
+package data;
+
+/**
+ * A view of a run of rows in a CountryDataset (normally one country inside a year range).
+ * It doesnt copy anything, it only remembers where the run starts and ends.
+ */
+public final class DataSlice {
+    private final CountryDataset dataset;
+    private final int from;
+    private final int to;
+
+    DataSlice(CountryDataset dataset, int from, int to) {
+        this.dataset = dataset;
+        this.from = from;
+        this.to = to;
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+    public int from() { return from; }
+    public int to() { return to; }
+    public int size() { return to - from; }
+    public boolean isEmpty() { return to <= from; }
+
+    public int year(int i) { return dataset.yearAt(from + i); }
+    public double emission(int i) { return dataset.emissionAt(from + i); }
+}
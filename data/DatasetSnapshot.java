@@ -0,0 +1,304 @@
+package data;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary copy of a loaded dataset that is saved next to the CSV (or in ~/.climate-visualiser/cache if that folder
+ * isnt writable) so the same file opens again without parsing it. The snapshot remembers the CSV's size, modified
+ * time and a content hash, and is ignored as soon as any of them change. It also carries a checksum of its own
+ * contents, so a snapshot that got truncated or damaged on disk is thrown away instead of loaded.
+ *
+ * Layout (little endian):
+ *   magic, version, csv size, csv mtime, csv hash, checksum, row count, country count, header count,
+ *   headers and country names as (length, UTF-8 bytes), padding to 8 bytes,
+ *   per country row offsets int[countries + 1], years int[rows], emissions double[rows]
+ */
+final class DatasetSnapshot {
+    private static final int MAGIC = 0x43445331; // "CDS1"
+    private static final int VERSION = 2;
+    private static final String SUFFIX = ".snapshot";
+
+    // the hash reads a few blocks spread over the file instead of all of it, otherwise checking it would cost as much as parsing
+    private static final int HASH_BLOCK = 64 * 1024;
+    private static final int HASH_SAMPLES = 16;
+
+    private final List<String> headers;
+    private final CountryDataset dataset;
+
+    private DatasetSnapshot(List<String> headers, CountryDataset dataset) {
+        this.headers = headers;
+        this.dataset = dataset;
+    }
+
+    List<String> headers() { return headers; }
+    CountryDataset dataset() { return dataset; }
+
+    /**
+     * Opens the snapshot for a CSV, or returns null if there isnt one or it no longer matches the CSV
+     */
+    static DatasetSnapshot open(Path csv) {
+        try {
+            long size = Files.size(csv);
+            long modified = Files.getLastModifiedTime(csv).toMillis();
+            for (Path candidate : locations(csv)) {
+                if (!Files.isRegularFile(candidate)) continue;
+                DatasetSnapshot snapshot = read(candidate, csv, size, modified);
+                if (snapshot != null) return snapshot;
+            }
+        } catch (IOException | RuntimeException e) {
+            // a broken snapshot just means we parse the CSV again
+        }
+        return null;
+    }
+
+    /**
+     * Saves a snapshot for the CSV. Failing to write one isnt an error, the next load just parses the CSV again.
+     */
+    static void save(Path csv, List<String> headers, CountryDataset dataset) {
+        try {
+            long size = Files.size(csv);
+            long modified = Files.getLastModifiedTime(csv).toMillis();
+            long hash = contentHash(csv);
+            for (Path target : locations(csv)) {
+                try {
+                    write(target, size, modified, hash, headers, dataset);
+                    return;
+                } catch (IOException e) {
+                    // try the next location
+                }
+            }
+        } catch (IOException e) {
+            // nothing to do, the snapshot is only a speed up
+        }
+    }
+
+    private static List<Path> locations(Path csv) {
+        Path absolute = csv.toAbsolutePath();
+        List<Path> paths = new ArrayList<>();
+        paths.add(absolute.resolveSibling(absolute.getFileName() + SUFFIX));
+        String cacheName = Long.toHexString(hashString(absolute.toString())) + "-" + absolute.getFileName() + SUFFIX;
+        paths.add(Paths.get(System.getProperty("user.home"), ".climate-visualiser", "cache", cacheName));
+        return paths;
+    }
+
+    private static DatasetSnapshot read(Path file, Path csv, long csvSize, long csvModified) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) return null;
+            if (head.getLong() != csvSize || head.getLong() != csvModified) return null;
+            long hash = head.getLong();
+            long checksum = head.getLong();
+            int rows = head.getInt();
+            int countryCount = head.getInt();
+            int headerCount = head.getInt();
+            // counts from a damaged file could ask for huge arrays, none of them can be bigger than the file itself
+            if (rows < 0 || countryCount < 0 || headerCount < 0
+                    || 8L * rows > fileSize || 4L * countryCount > fileSize || 4L * headerCount > fileSize) return null;
+
+            // size and mtime are checked first because they are free, the hash only once they match
+            if (hash != contentHash(csv)) return null;
+
+            List<String> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(readString(head));
+            }
+            String[] countries = new String[countryCount];
+            for (int i = 0; i < countryCount; i++) {
+                countries[i] = readString(head);
+            }
+
+            long offsetsStart = align(head.position());
+            long yearsStart = offsetsStart + 4L * (countryCount + 1);
+            long emissionsStart = align(yearsStart + 4L * rows);
+            if (emissionsStart + 8L * rows != fileSize) return null;
+
+            int[] offsets = new int[countryCount + 1];
+            channel.map(FileChannel.MapMode.READ_ONLY, offsetsStart, 4L * offsets.length)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(offsets);
+            int[] years = new int[rows];
+            channel.map(FileChannel.MapMode.READ_ONLY, yearsStart, 4L * rows)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(years);
+            double[] emissions = new double[rows];
+            channel.map(FileChannel.MapMode.READ_ONLY, emissionsStart, 8L * rows)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(emissions);
+
+            if (checksum != checksum(headers, Arrays.asList(countries), offsets, years, emissions, rows)) return null;
+            if (offsets[0] != 0 || offsets[countryCount] != rows) return null;
+            int[] countryColumn = new int[rows];
+            for (int id = 0; id < countryCount; id++) {
+                if (offsets[id] > offsets[id + 1] || offsets[id + 1] > rows) return null;
+                for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                    countryColumn[i] = id;
+                }
+            }
+            return new DatasetSnapshot(headers, CountryDataset.fromColumns(countries, countryColumn, offsets, years, emissions, rows));
+        }
+    }
+
+    private static void write(Path target, long csvSize, long csvModified, long hash, List<String> headers, CountryDataset dataset) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        int rows = dataset.size();
+        int countryCount = dataset.countryCount();
+        long checksum = checksum(headers, dataset.countryNames(), dataset.countryStarts(), dataset.years(), dataset.emissions(), rows);
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            List<byte[]> strings = new ArrayList<>();
+            int stringBytes = 0;
+            for (String header : headers) {
+                byte[] bytes = header.getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += 4 + bytes.length;
+            }
+            for (int id = 0; id < countryCount; id++) {
+                byte[] bytes = dataset.countryName(id).getBytes(StandardCharsets.UTF_8);
+                strings.add(bytes);
+                stringBytes += 4 + bytes.length;
+            }
+
+            int headSize = 4 + 4 + 8 + 8 + 8 + 8 + 4 + 4 + 4 + stringBytes;
+            ByteBuffer head = ByteBuffer.allocate((int) align(headSize)).order(ByteOrder.LITTLE_ENDIAN);
+            head.putInt(MAGIC).putInt(VERSION).putLong(csvSize).putLong(csvModified).putLong(hash)
+                .putLong(checksum).putInt(rows).putInt(countryCount).putInt(headers.size());
+            for (byte[] bytes : strings) {
+                head.putInt(bytes.length).put(bytes);
+            }
+            head.position(head.capacity()).flip();
+            writeFully(channel, head);
+
+            writeInts(channel, dataset.countryStarts(), countryCount + 1);
+            writeInts(channel, dataset.years(), rows);
+            if ((4L * (countryCount + 1 + rows)) % 8 != 0) {
+                writeFully(channel, ByteBuffer.allocate(4));
+            }
+            writeDoubles(channel, dataset.emissions(), rows);
+        } catch (IOException | RuntimeException e) {
+            // a half written snapshot is useless, dont leave it lying around
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Hash of everything the snapshot stores, checked when reading so damaged files are noticed
+     */
+    static long checksum(List<String> headers, List<String> countries, int[] offsets, int[] years, double[] emissions, int rows) {
+        long hash = 0xcbf29ce484222325L;
+        for (String header : headers) {
+            hash = (hash ^ hashString(header)) * 0x100000001b3L;
+        }
+        for (String country : countries) {
+            hash = (hash ^ hashString(country)) * 0x100000001b3L;
+        }
+        for (int id = 0; id <= countries.size(); id++) {
+            hash = (hash ^ offsets[id]) * 0x100000001b3L;
+        }
+        // two lanes so the multiplies of neighbouring rows can overlap
+        long even = hash;
+        long odd = ~hash;
+        int i = 0;
+        for (; i + 1 < rows; i += 2) {
+            even = (even ^ ((long) years[i] << 32 ^ Double.doubleToRawLongBits(emissions[i]))) * 0x100000001b3L;
+            odd = (odd ^ ((long) years[i + 1] << 32 ^ Double.doubleToRawLongBits(emissions[i + 1]))) * 0x100000001b3L;
+        }
+        if (i < rows) {
+            even = (even ^ ((long) years[i] << 32 ^ Double.doubleToRawLongBits(emissions[i]))) * 0x100000001b3L;
+        }
+        return even * 31 + odd;
+    }
+
+    private static void writeInts(FileChannel channel, int[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; ) {
+            int n = Math.min(count - i, buffer.capacity() / 4);
+            buffer.clear();
+            buffer.asIntBuffer().put(values, i, n);
+            buffer.limit(4 * n);
+            writeFully(channel, buffer);
+            i += n;
+        }
+    }
+
+    private static void writeDoubles(FileChannel channel, double[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < count; ) {
+            int n = Math.min(count - i, buffer.capacity() / 8);
+            buffer.clear();
+            buffer.asDoubleBuffer().put(values, i, n);
+            buffer.limit(8 * n);
+            writeFully(channel, buffer);
+            i += n;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) throw new IllegalStateException("Bad string length " + length);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Hashes the start, the end and evenly spaced blocks of the file (plus its size). Combined with the size and
+     * modified time this catches edits without reading hundreds of MB every time the app starts.
+     */
+    static long contentHash(Path csv) throws IOException {
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long hash = 0xcbf29ce484222325L ^ size;
+            if (size == 0) return hash;
+            long step = Math.max(HASH_BLOCK, size / HASH_SAMPLES);
+            for (long position = 0; position < size; position += step) {
+                hash = hashBlock(channel, position, Math.min(HASH_BLOCK, size - position), hash);
+            }
+            long tail = Math.max(0, size - HASH_BLOCK);
+            return hashBlock(channel, tail, size - tail, hash);
+        }
+    }
+
+    private static long hashBlock(FileChannel channel, long position, long length, long hash) throws IOException {
+        MappedByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        while (block.remaining() >= 8) {
+            hash = (hash ^ block.getLong()) * 0x100000001b3L;
+        }
+        while (block.hasRemaining()) {
+            hash = (hash ^ block.get()) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long hashString(String text) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,80 @@
+package data;
+
+import java.util.Locale;
+
+/**
+ * Just enough JSON output for the API responses and the CLI reports, written straight into a StringBuilder.
+ * NaN and infinite numbers come out as null.
+ */
+public final class JsonWriter {
+    private final StringBuilder out = new StringBuilder(256);
+    private boolean needsComma;
+
+    public JsonWriter beginObject() { separate(); out.append('{'); needsComma = false; return this; }
+    public JsonWriter endObject() { out.append('}'); needsComma = true; return this; }
+    public JsonWriter beginArray() { separate(); out.append('['); needsComma = false; return this; }
+    public JsonWriter endArray() { out.append(']'); needsComma = true; return this; }
+
+    public JsonWriter name(String name) {
+        separate();
+        string(name);
+        out.append(':');
+        needsComma = false;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        separate();
+        if (value == null) out.append("null"); else string(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        out.append(value);
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter value(double value) {
+        separate();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.append("null");
+        } else {
+            out.append(String.format(Locale.ROOT, "%.6f", value));
+        }
+        needsComma = true;
+        return this;
+    }
+
+    public JsonWriter field(String name, String value) { return name(name).value(value); }
+    public JsonWriter field(String name, long value) { return name(name).value(value); }
+    public JsonWriter field(String name, double value) { return name(name).value(value); }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private void separate() {
+        if (needsComma) out.append(',');
+    }
+
+    private void string(String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20) out.append(String.format("\\u%04x", (int) c)); else out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
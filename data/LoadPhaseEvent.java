@@ -0,0 +1,50 @@
+package data;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one step of loading a file: reading a snapshot, parsing the CSV, building the
+ * dataset or saving the snapshot. Every phase is also timed in Metrics as "load.<phase>".
+ *
+ * Record with e.g. java -XX:StartFlightRecording=filename=session.jfr ... and open the file in JDK Mission
+ * Control, the events are under Climate.
+ */
+@Name("climate.LoadPhase")
+@Label("CSV Load Phase")
+@Category("Climate")
+@Description("One step of loading a CSV file")
+final class LoadPhaseEvent extends TimedEvent {
+    @Label("File")
+    String file;
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Rows")
+    long rows;
+
+    @Label("File Size")
+    @DataAmount
+    long bytes;
+
+    static LoadPhaseEvent start(String file, String phase, long bytes) {
+        LoadPhaseEvent event = new LoadPhaseEvent();
+        event.file = file;
+        event.phase = phase;
+        event.bytes = bytes;
+        event.startTiming();
+        return event;
+    }
+
+    /**
+     * Ends the phase, commits the event and returns how long it took in nanoseconds
+     */
+    long finish(long rows) {
+        this.rows = rows;
+        return finishTiming("load." + phase);
+    }
+}
@@ -0,0 +1,185 @@
+package data;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Size limited cache keyed by a long (see key(int, int, int) for packing a country and year window into one).
+ * When it is full the least recently used entry is thrown out. Every lookup says which dataset version it is for:
+ * a newer version empties the cache, and an older one (a task that was still running for the previous file) always
+ * misses and cant store anything, so results from an old file can never come back. The version check and the
+ * lookup happen under the same lock, so there is no gap for a stale task to slip into.
+ * Dataset versions only ever go up (see CountryDataset.version()), which is what makes "older" well defined.
+ * Hits, misses and evictions are counted so the UI can show how well the cache is doing.
+ *
+ * Entries live in plain arrays (hash chains plus a doubly linked recency list), so a lookup doesnt box the key.
+ */
+public final class LongLruCache<V> {
+    private static final int NONE = -1;
+
+    private final int capacity;
+    private final int[] buckets;
+    private final long[] keys;
+    private final Object[] values;
+    private final int[] chain;       // next entry in the same bucket
+    private final int[] newer;       // recency list, head is the most recently used
+    private final int[] older;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    private long version;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LongLruCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.buckets = new int[Integer.highestOneBit(capacity * 2 - 1) * 2];
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.chain = new int[capacity];
+        this.newer = new int[capacity];
+        this.older = new int[capacity];
+        Arrays.fill(buckets, NONE);
+    }
+
+    /**
+     * Packs a country id (up to 2^23) and two years (-524288 to 524287) into one key
+     */
+    public static long key(int countryId, int minYear, int maxYear) {
+        return ((long) countryId << 40) | ((minYear & 0xFFFFFL) << 20) | (maxYear & 0xFFFFFL);
+    }
+
+    /**
+     * Moves the cache on to a newer dataset version, emptying it. Returns false if datasetVersion is older than
+     * the cache's, the caller is then working on a file that has already been replaced.
+     */
+    private boolean accept(long datasetVersion) {
+        if (datasetVersion < version) return false;
+        if (datasetVersion > version) {
+            clear();
+            version = datasetVersion;
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized V get(long datasetVersion, long key) {
+        int entry = accept(datasetVersion) ? find(key) : NONE;
+        if (entry == NONE) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToFront(entry);
+        return (V) values[entry];
+    }
+
+    public synchronized void put(long datasetVersion, long key, V value) {
+        if (!accept(datasetVersion)) return;
+        int entry = find(key);
+        if (entry != NONE) {
+            values[entry] = value;
+            moveToFront(entry);
+            return;
+        }
+
+        if (size == capacity) {
+            entry = tail;
+            unlink(entry);
+            removeFromBucket(entry);
+            evictions++;
+        } else {
+            entry = size++;
+        }
+        keys[entry] = key;
+        values[entry] = value;
+        int bucket = bucket(key);
+        chain[entry] = buckets[bucket];
+        buckets[bucket] = entry;
+        linkFront(entry);
+    }
+
+    /**
+     * Returns the cached value or computes, stores and returns it. The computation runs outside the lock,
+     * so two threads asking for the same missing key may both compute it (the results are the same anyway).
+     * If the dataset was replaced while computing, the value is still returned but put() drops it.
+     */
+    public V computeIfAbsent(long datasetVersion, long key, LongFunction<V> compute) {
+        V value = get(datasetVersion, key);
+        if (value == null) {
+            value = compute.apply(key);
+            if (value != null) {
+                put(datasetVersion, key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(values, 0, size, null);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    public synchronized long version() { return version; }
+    public synchronized int size() { return size; }
+    public int capacity() { return capacity; }
+    public synchronized long hits() { return hits; }
+    public synchronized long misses() { return misses; }
+    public synchronized long evictions() { return evictions; }
+
+    public synchronized double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private int find(long key) {
+        for (int entry = buckets[bucket(key)]; entry != NONE; entry = chain[entry]) {
+            if (keys[entry] == key) return entry;
+        }
+        return NONE;
+    }
+
+    private int bucket(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & (buckets.length - 1);
+    }
+
+    private void removeFromBucket(int entry) {
+        int bucket = bucket(keys[entry]);
+        if (buckets[bucket] == entry) {
+            buckets[bucket] = chain[entry];
+            return;
+        }
+        for (int e = buckets[bucket]; e != NONE; e = chain[e]) {
+            if (chain[e] == entry) {
+                chain[e] = chain[entry];
+                return;
+            }
+        }
+    }
+
+    private void moveToFront(int entry) {
+        if (entry == head) return;
+        unlink(entry);
+        linkFront(entry);
+    }
+
+    private void linkFront(int entry) {
+        newer[entry] = NONE;
+        older[entry] = head;
+        if (head != NONE) newer[head] = entry;
+        head = entry;
+        if (tail == NONE) tail = entry;
+    }
+
+    private void unlink(int entry) {
+        if (newer[entry] != NONE) older[newer[entry]] = older[entry]; else head = older[entry];
+        if (older[entry] != NONE) newer[older[entry]] = newer[entry]; else tail = newer[entry];
+    }
+}
@@ -0,0 +1,330 @@
+package data;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * CSV parser that memory maps the file and reads the bytes directly. Numbers are parsed straight out of the
+ * buffer and appended to the builder's primitive columns, so a normal row doesnt create any objects at all.
+ * It reads the file exactly like the old BufferedReader + split(",") version did: rows with fewer than three
+ * fields are skipped and anything that isnt a plain number goes through Integer/Double.parse for the same errors.
+ */
+final class MappedCsvParser {
+    // a single mapping can be at most 2GB, so bigger files are read a window at a time
+    private static final long WINDOW_SIZE = 1L << 30;
+    // below this a range isnt worth a thread of its own
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    // powers of ten that are exact doubles, used by the fast path in parseDouble
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private MappedCsvParser() {}
+
+    /**
+     * Parses the whole file into the builder on the calling thread and returns the header fields
+     */
+    static List<String> parse(Path path, CountryDataset.Builder builder) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long bodyStart = nextLineStart(channel, 0);
+            List<String> headers = readHeader(channel, bodyStart);
+            parseRange(channel, bodyStart, channel.size(), new CountryDictionary(builder), builder);
+            return headers;
+        }
+    }
+
+    /**
+     * Parses the file on several threads. The body is cut into byte ranges that each start on a new line, every range
+     * fills its own builder (with its own country dictionary), and the builders are then added to the result in file
+     * order. Because the rows end up in the same order as a single threaded read, build() gives exactly the same dataset.
+     */
+    static List<String> parseParallel(Path path, CountryDataset.Builder builder, int threads) throws IOException {
+        return parseParallel(path, builder, threads, MIN_CHUNK_SIZE);
+    }
+
+    /**
+     * Same as above with the smallest range size given, so a small file can still be cut into many ranges
+     */
+    static List<String> parseParallel(Path path, CountryDataset.Builder builder, int threads, long minChunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long bodyStart = nextLineStart(channel, 0);
+            List<String> headers = readHeader(channel, bodyStart);
+
+            int chunks = (int) Math.max(1, Math.min(threads, (fileSize - bodyStart) / Math.max(1, minChunkSize)));
+            long[] bounds = new long[chunks + 1];
+            bounds[0] = bodyStart;
+            bounds[chunks] = fileSize;
+            long chunkSize = (fileSize - bodyStart) / chunks;
+            for (int k = 1; k < chunks; k++) {
+                // scanning from one byte early means a cut that already sits on a line start stays where it is
+                long cut = nextLineStart(channel, bodyStart + k * chunkSize - 1);
+                bounds[k] = Math.max(bounds[k - 1], cut);
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                List<ForkJoinTask<CountryDataset.Builder>> tasks = new ArrayList<>();
+                for (int k = 0; k < chunks; k++) {
+                    long from = bounds[k];
+                    long to = bounds[k + 1];
+                    tasks.add(pool.submit(() -> {
+                        CountryDataset.Builder part = new CountryDataset.Builder((int) Math.min(Integer.MAX_VALUE - 8, (to - from) / 24));
+                        parseRange(channel, from, to, new CountryDictionary(part), part);
+                        return part;
+                    }));
+                }
+                for (ForkJoinTask<CountryDataset.Builder> task : tasks) {
+                    builder.addAll(task.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading " + path);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) throw (IOException) cause;
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IOException(cause);
+            } finally {
+                pool.shutdownNow();
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * Parses the lines in file[from, to), mapping it a window at a time. from has to be the start of a line.
+     */
+    private static void parseRange(FileChannel channel, long from, long to, CountryDictionary dictionary, CountryDataset.Builder builder) throws IOException {
+        long position = from;
+        while (position < to) {
+            long length = Math.min(WINDOW_SIZE, to - position);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            // only parse up to the last complete line, the rest is picked up by the next window
+            int end = (int) length;
+            if (position + length < to) {
+                end = lastLineEnd(buffer, end);
+                if (end < 0) {
+                    throw new IOException("Line longer than " + WINDOW_SIZE + " bytes at offset " + position);
+                }
+            }
+            parseLines(buffer, 0, end, dictionary, builder);
+            position += end;
+        }
+    }
+
+    private static List<String> readHeader(FileChannel channel, long headerEnd) throws IOException {
+        if (headerEnd == 0) return new ArrayList<>();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, headerEnd);
+        int end = (int) headerEnd;
+        if (buffer.get(end - 1) == '\n') {
+            end--;
+        }
+        return parseHeader(buffer, 0, end);
+    }
+
+    /**
+     * File position just after the first '\n' at or after position, or the file size if there isnt one
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long fileSize = channel.size();
+        while (position < fileSize) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') return position + i + 1;
+            }
+            position += read;
+        }
+        return fileSize;
+    }
+
+    /**
+     * Parses every line in buffer[from, to) into the builder. from has to be the start of a line.
+     */
+    static void parseLines(ByteBuffer buffer, int from, int to, CountryDictionary dictionary, CountryDataset.Builder builder) {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = lineEnd(buffer, lineStart, to);
+            int end = lineEnd;
+            if (end > lineStart && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            parseLine(buffer, lineStart, end, dictionary, builder);
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    private static void parseLine(ByteBuffer buffer, int start, int end, CountryDictionary dictionary, CountryDataset.Builder builder) {
+        int comma1 = indexOf(buffer, start, end, (byte) ',');
+        if (comma1 < 0) return;
+        int comma2 = indexOf(buffer, comma1 + 1, end, (byte) ',');
+        if (comma2 < 0) return;
+
+        // split(",") drops trailing empty fields, so a row only counts when something follows the second comma
+        boolean hasThirdField = false;
+        for (int i = comma2 + 1; i < end && !hasThirdField; i++) {
+            hasThirdField = buffer.get(i) != ',';
+        }
+        if (!hasThirdField) return;
+
+        int comma3 = indexOf(buffer, comma2 + 1, end, (byte) ',');
+        int emissionEnd = comma3 < 0 ? end : comma3;
+
+        int country = dictionary.lookup(buffer, start, comma1);
+        int year = parseInt(buffer, comma1 + 1, comma2);
+        double emission = parseDouble(buffer, comma2 + 1, emissionEnd);
+        builder.add(country, year, emission);
+    }
+
+    static int parseInt(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        // up to 9 digits can never overflow an int
+        if (i == to || to - i > 9) {
+            return Integer.parseInt(decode(buffer, from, to));
+        }
+        int value = 0;
+        for (; i < to; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(decode(buffer, from, to));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses plain decimals like 0.0019921463 or 1.5e3 straight from the bytes. When the digits fit in a double
+     * exactly and the power of ten is exact too, a single multiply or divide is correctly rounded, so the result is
+     * the same as Double.parseDouble. Anything else (long mantissas, NaN, spaces, bad input) is handed to it instead.
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significantDigits = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenPoint = false;
+
+        for (; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa != 0 || b != '0') {
+                    if (++significantDigits > 15) {
+                        return Double.parseDouble(decode(buffer, from, to));
+                    }
+                    mantissa = mantissa * 10 + (b - '0');
+                }
+                if (seenPoint) exponent--;
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(decode(buffer, from, to));
+        }
+
+        if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int exponentDigits = 0;
+            int value = 0;
+            for (; i < to && exponentDigits < 4; i++, exponentDigits++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+            }
+            if (exponentDigits == 0) {
+                return Double.parseDouble(decode(buffer, from, to));
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (i != to || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(decode(buffer, from, to));
+        }
+
+        double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+        return negative ? -value : value;
+    }
+
+    static List<String> parseHeader(ByteBuffer buffer, int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        String line = decode(buffer, from, to);
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        return Arrays.asList(line.split(","));
+    }
+
+    /**
+     * Index of the next '\n' at or after from, or to if the last line has no newline
+     */
+    static int lineEnd(ByteBuffer buffer, int from, int to) {
+        int newline = indexOf(buffer, from, to, (byte) '\n');
+        return newline < 0 ? to : newline;
+    }
+
+    /**
+     * Position just after the last '\n' before to, or -1 if there isnt one
+     */
+    private static int lastLineEnd(ByteBuffer buffer, int to) {
+        for (int i = to - 1; i >= 0; i--) {
+            if (buffer.get(i) == '\n') return i + 1;
+        }
+        return -1;
+    }
+
+    private static int indexOf(ByteBuffer buffer, int from, int to, byte target) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == target) return i;
+        }
+        return -1;
+    }
+
+    private static String decode(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) {
+            bytes[i - from] = buffer.get(i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
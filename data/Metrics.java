@@ -0,0 +1,104 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In process metrics, so we can see where the time goes in a normal session without attaching a profiler.
+ * There are three kinds, all looked up by name and created the first time they are used:
+ *
+ *  - timers: how often something ran and how long it took (last, mean and max)
+ *  - values: the latest reading of something, e.g. rows per second of the last load
+ *  - gauges: worked out when someone looks, e.g. a cache's hit ratio
+ *
+ * Names are dotted ("load.parse", "update.render") so describe() lists related ones together.
+ * The same measurements also go to Flight Recorder as events (see LoadPhaseEvent), this is the live view.
+ */
+public final class Metrics {
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Double> VALUES = new ConcurrentHashMap<>();
+    private static final Map<String, DoubleSupplier> GAUGES = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * Count and durations for one kind of work. Updates are cheap (one lock, no allocation).
+     */
+    public static final class Timer {
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long lastNanos;
+
+        public synchronized void record(long nanos) {
+            count++;
+            totalNanos += nanos;
+            lastNanos = nanos;
+            if (nanos > maxNanos) maxNanos = nanos;
+        }
+
+        /**
+         * Records the time since start (a System.nanoTime() reading) and returns it
+         */
+        public long recordSince(long start) {
+            long nanos = System.nanoTime() - start;
+            record(nanos);
+            return nanos;
+        }
+
+        public synchronized long count() { return count; }
+        public synchronized double lastMillis() { return lastNanos / 1e6; }
+        public synchronized double maxMillis() { return maxNanos / 1e6; }
+        public synchronized double meanMillis() { return count == 0 ? 0 : totalNanos / 1e6 / count; }
+    }
+
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, n -> new Timer());
+    }
+
+    public static void set(String name, double value) {
+        VALUES.put(name, value);
+    }
+
+    /**
+     * Registers something to read whenever the metrics are shown, replacing any gauge with the same name
+     */
+    public static void gauge(String name, DoubleSupplier supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    /**
+     * The latest value or gauge reading with this name, NaN if there isnt one
+     */
+    public static double value(String name) {
+        DoubleSupplier gauge = GAUGES.get(name);
+        if (gauge != null) return gauge.getAsDouble();
+        Double value = VALUES.get(name);
+        return value == null ? Double.NaN : value;
+    }
+
+    /**
+     * One line per metric, sorted by name, for showing on screen or printing
+     */
+    public static List<String> describe() {
+        Map<String, String> lines = new TreeMap<>();
+        TIMERS.forEach((name, timer) -> lines.put(name, String.format("%-22s last %8.2f ms  mean %8.2f ms  max %8.2f ms  (%d)",
+            name, timer.lastMillis(), timer.meanMillis(), timer.maxMillis(), timer.count())));
+        VALUES.forEach((name, value) -> lines.put(name, String.format("%-22s %,.1f", name, value)));
+        GAUGES.forEach((name, gauge) -> lines.put(name, String.format("%-22s %,.3f", name, gauge.getAsDouble())));
+        return new ArrayList<>(lines.values());
+    }
+
+    /**
+     * Forgets everything except the gauges (they belong to whoever registered them)
+     */
+    public static void reset() {
+        TIMERS.clear();
+        VALUES.clear();
+    }
+}
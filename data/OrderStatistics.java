@@ -0,0 +1,147 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Answers median / quartile / percentile questions for any run of rows without sorting or copying anything.
+ *
+ * It is a wavelet matrix over the emission column: every value is replaced by its rank among all the distinct
+ * values, and for each bit of that rank (top bit first) we store one bit per row and then stably move the rows
+ * with a 0 bit in front of the rows with a 1 bit. Finding the k-th smallest value in a window then walks down
+ * the levels, at each one counting how many of the window's rows have a 0 bit, which is two rank lookups.
+ * So a query is O(log distinct values) and only touches a handful of words per level.
+ */
+public final class OrderStatistics {
+    private final double[] sortedValues;   // distinct values, rank -> value
+    private final long[][] bits;           // bits[level] = one bit per row for that level
+    private final int[][] ranks;           // ranks[level][w] = number of 1 bits before word w
+    private final int[] zeros;             // zeros[level] = how many rows have a 0 bit at that level
+    private final int levels;
+
+    public OrderStatistics(CountryDataset dataset) {
+        int size = dataset.size();
+        double[] values = dataset.emissions();
+
+        double[] sorted = Arrays.copyOf(values, size);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || Double.compare(sorted[i], sorted[distinct - 1]) != 0) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        sortedValues = Arrays.copyOf(sorted, distinct);
+
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = Arrays.binarySearch(sortedValues, values[i]);
+        }
+
+        levels = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(1, distinct - 1)));
+        bits = new long[levels][];
+        ranks = new int[levels][];
+        zeros = new int[levels];
+
+        int words = (size >>> 6) + 1;
+        int[] next = new int[size];
+        for (int level = 0; level < levels; level++) {
+            int shift = levels - 1 - level;
+            long[] levelBits = new long[words];
+            int zeroCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (((codes[i] >>> shift) & 1) != 0) {
+                    levelBits[i >>> 6] |= 1L << (i & 63);
+                } else {
+                    zeroCount++;
+                }
+            }
+
+            int[] levelRanks = new int[words + 1];
+            for (int w = 0; w < words; w++) {
+                levelRanks[w + 1] = levelRanks[w] + Long.bitCount(levelBits[w]);
+            }
+
+            // stable partition: rows with a 0 bit go first, the rows with a 1 bit follow in the same order
+            int zeroAt = 0;
+            int oneAt = zeroCount;
+            for (int i = 0; i < size; i++) {
+                if (((codes[i] >>> shift) & 1) != 0) {
+                    next[oneAt++] = codes[i];
+                } else {
+                    next[zeroAt++] = codes[i];
+                }
+            }
+            int[] swap = codes;
+            codes = next;
+            next = swap;
+
+            bits[level] = levelBits;
+            ranks[level] = levelRanks;
+            zeros[level] = zeroCount;
+        }
+    }
+
+    /**
+     * The k-th smallest value (k starts at 0) among the rows [from, to)
+     */
+    public double kth(int from, int to, int k) {
+        if (k < 0 || k >= to - from) {
+            throw new IndexOutOfBoundsException("k = " + k + " for a window of " + (to - from) + " rows");
+        }
+        int code = 0;
+        for (int level = 0; level < levels; level++) {
+            int onesBeforeFrom = rank1(level, from);
+            int onesBeforeTo = rank1(level, to);
+            int zerosInWindow = (to - from) - (onesBeforeTo - onesBeforeFrom);
+            code <<= 1;
+            if (k < zerosInWindow) {
+                from = from - onesBeforeFrom;
+                to = to - onesBeforeTo;
+            } else {
+                k -= zerosInWindow;
+                from = zeros[level] + onesBeforeFrom;
+                to = zeros[level] + onesBeforeTo;
+                code |= 1;
+            }
+        }
+        return sortedValues[code];
+    }
+
+    /**
+     * Median of the rows [from, to), the average of the two middle values when the count is even
+     */
+    public double median(int from, int to) {
+        int count = to - from;
+        if (count <= 0) return 0;
+        if (count % 2 == 1) return kth(from, to, count / 2);
+        return (kth(from, to, count / 2 - 1) + kth(from, to, count / 2)) / 2.0;
+    }
+
+    /**
+     * Percentile of the rows [from, to) for p between 0 and 1, interpolating linearly between the two closest
+     * ranks (the same method spreadsheets use for PERCENTILE)
+     */
+    public double percentile(int from, int to, double p) {
+        int count = to - from;
+        if (count <= 0) return 0;
+        double position = Math.max(0, Math.min(1, p)) * (count - 1);
+        int lower = (int) Math.floor(position);
+        double fraction = position - lower;
+        double low = kth(from, to, lower);
+        if (fraction == 0 || lower + 1 >= count) return low;
+        return low + fraction * (kth(from, to, lower + 1) - low);
+    }
+
+    public double median(DataSlice slice) { return median(slice.from(), slice.to()); }
+    public double percentile(DataSlice slice, double p) { return percentile(slice.from(), slice.to(), p); }
+
+    private int rank1(int level, int position) {
+        int word = position >>> 6;
+        int bit = position & 63;
+        int rank = ranks[level][word];
+        if (bit != 0) {
+            rank += Long.bitCount(bits[level][word] & ((1L << bit) - 1));
+        }
+        return rank;
+    }
+}
@@ -0,0 +1,193 @@
+package data;
+
+/**
+ * Precomputed tables that answer "stats for country X between year A and B" without looping over the rows.
+ *
+ * Sums: for every row we store the running total of the country's values (and of their squares) up to that row,
+ * so the sum of any window is one subtraction. Values are shifted by the country's first value before summing,
+ * which keeps the variance accurate even for long series with a large mean.
+ *
+ * Min/max: rows are grouped into blocks of 32 and a sparse table stores the position of the min/max for every run
+ * of 1, 2, 4, ... blocks. A window is then the two ragged ends (at most 31 rows each) plus two overlapping table
+ * lookups. The table only goes as high as the longest country needs, because a window never crosses countries.
+ */
+public final class RangeQueryEngine {
+    private static final int BLOCK_SHIFT = 5;
+    private static final int BLOCK = 1 << BLOCK_SHIFT;
+
+    private final CountryDataset dataset;
+    private final double[] values;
+    private final double[] pivots;       // per country, the value everything is shifted by
+    private final double[] sums;         // inclusive running sum of (value - pivot) inside each country
+    private final double[] squares;      // inclusive running sum of (value - pivot)^2 inside each country
+    private final int[][] minTable;      // minTable[k][b] = row of the smallest value in blocks b .. b + 2^k - 1
+    private final int[][] maxTable;
+
+    public RangeQueryEngine(CountryDataset dataset) {
+        this.dataset = dataset;
+        this.values = dataset.emissions();
+        int size = dataset.size();
+        int[] starts = dataset.countryStarts();
+
+        pivots = new double[dataset.countryCount()];
+        sums = new double[size];
+        squares = new double[size];
+        int longest = 0;
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            int start = starts[id];
+            int end = starts[id + 1];
+            longest = Math.max(longest, end - start);
+            if (start == end) continue;
+            double pivot = values[start];
+            pivots[id] = pivot;
+            double sum = 0;
+            double square = 0;
+            for (int i = start; i < end; i++) {
+                double shifted = values[i] - pivot;
+                sum += shifted;
+                square += shifted * shifted;
+                sums[i] = sum;
+                squares[i] = square;
+            }
+        }
+
+        int blocks = (size + BLOCK - 1) >> BLOCK_SHIFT;
+        int levels = 1;
+        while ((1 << levels) <= (longest >> BLOCK_SHIFT) + 1) {
+            levels++;
+        }
+        minTable = new int[levels][];
+        maxTable = new int[levels][];
+        minTable[0] = new int[blocks];
+        maxTable[0] = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            int from = b << BLOCK_SHIFT;
+            int to = Math.min(size, from + BLOCK);
+            minTable[0][b] = scanMin(from, to);
+            maxTable[0][b] = scanMax(from, to);
+        }
+        for (int k = 1; k < levels; k++) {
+            int count = Math.max(0, blocks - (1 << k) + 1);
+            int half = 1 << (k - 1);
+            minTable[k] = new int[count];
+            maxTable[k] = new int[count];
+            for (int b = 0; b < count; b++) {
+                minTable[k][b] = smaller(minTable[k - 1][b], minTable[k - 1][b + half]);
+                maxTable[k][b] = larger(maxTable[k - 1][b], maxTable[k - 1][b + half]);
+            }
+        }
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+
+    /**
+     * Stats for one country between minYear and maxYear (inclusive)
+     */
+    public RangeStats query(int countryId, int minYear, int maxYear) {
+        return query(dataset.slice(countryId, minYear, maxYear));
+    }
+
+    public RangeStats query(DataSlice slice) {
+        return query(slice.from(), slice.to());
+    }
+
+    /**
+     * Stats for the rows [from, to), which have to belong to a single country
+     */
+    public RangeStats query(int from, int to) {
+        int count = to - from;
+        if (count <= 0) return RangeStats.EMPTY;
+        int[] years = dataset.years();
+
+        int country = dataset.countryAt(from);
+        double shiftedSum = rangeSum(sums, country, from, to);
+        double shiftedSquares = rangeSum(squares, country, from, to);
+        double mean = pivots[country] + shiftedSum / count;
+        double variance = count > 1 ? Math.max(0, (shiftedSquares - shiftedSum * shiftedSum / count) / (count - 1)) : 0;
+
+        int minRow = argMin(from, to);
+        int maxRow = argMax(from, to);
+        return new RangeStats(count, mean, variance,
+            values[minRow], years[minRow], values[maxRow], years[maxRow],
+            values[from], years[from], values[to - 1], years[to - 1]);
+    }
+
+    /**
+     * Sum of the values in [from, to) of one country
+     */
+    public double sum(int from, int to) {
+        if (to <= from) return 0;
+        int country = dataset.countryAt(from);
+        return pivots[country] * (to - from) + rangeSum(sums, country, from, to);
+    }
+
+    public double mean(int from, int to) {
+        return to <= from ? 0 : sum(from, to) / (to - from);
+    }
+
+    /**
+     * Row of the smallest value in [from, to), the earliest one if there is a tie
+     */
+    public int argMin(int from, int to) {
+        int firstBlock = (from + BLOCK - 1) >> BLOCK_SHIFT;
+        int endBlock = to >> BLOCK_SHIFT;
+        if (firstBlock >= endBlock) return scanMin(from, to);
+
+        int best = scanMin(from, firstBlock << BLOCK_SHIFT);
+        int k = 31 - Integer.numberOfLeadingZeros(endBlock - firstBlock);
+        best = smaller(best, minTable[k][firstBlock]);
+        best = smaller(best, minTable[k][endBlock - (1 << k)]);
+        return smaller(best, scanMin(endBlock << BLOCK_SHIFT, to));
+    }
+
+    /**
+     * Row of the largest value in [from, to), the earliest one if there is a tie
+     */
+    public int argMax(int from, int to) {
+        int firstBlock = (from + BLOCK - 1) >> BLOCK_SHIFT;
+        int endBlock = to >> BLOCK_SHIFT;
+        if (firstBlock >= endBlock) return scanMax(from, to);
+
+        int best = scanMax(from, firstBlock << BLOCK_SHIFT);
+        int k = 31 - Integer.numberOfLeadingZeros(endBlock - firstBlock);
+        best = larger(best, maxTable[k][firstBlock]);
+        best = larger(best, maxTable[k][endBlock - (1 << k)]);
+        return larger(best, scanMax(endBlock << BLOCK_SHIFT, to));
+    }
+
+    private double rangeSum(double[] prefix, int country, int from, int to) {
+        double before = from > dataset.countryStart(country) ? prefix[from - 1] : 0;
+        return prefix[to - 1] - before;
+    }
+
+    // -1 stands for "no row" so the ragged ends can be empty
+    private int scanMin(int from, int to) {
+        int best = -1;
+        for (int i = from; i < to; i++) {
+            if (best < 0 || values[i] < values[best]) best = i;
+        }
+        return best;
+    }
+
+    private int scanMax(int from, int to) {
+        int best = -1;
+        for (int i = from; i < to; i++) {
+            if (best < 0 || values[i] > values[best]) best = i;
+        }
+        return best;
+    }
+
+    private int smaller(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        if (values[a] != values[b]) return values[a] < values[b] ? a : b;
+        return Math.min(a, b);
+    }
+
+    private int larger(int a, int b) {
+        if (a < 0) return b;
+        if (b < 0) return a;
+        if (values[a] != values[b]) return values[a] > values[b] ? a : b;
+        return Math.min(a, b);
+    }
+}
@@ -0,0 +1,51 @@
+package data;
+
+/**
+ * Summary of one country over a year window. Immutable so it can be cached and handed between threads.
+ * Standard deviation and variance are the sample versions (divided by count - 1), the same as the stats panel always used.
+ */
+public final class RangeStats {
+    public static final RangeStats EMPTY = new RangeStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    private final int count;
+    private final double mean;
+    private final double variance;
+    private final double min;
+    private final int minYear;
+    private final double max;
+    private final int maxYear;
+    private final double first;
+    private final int firstYear;
+    private final double last;
+    private final int lastYear;
+
+    public RangeStats(int count, double mean, double variance, double min, int minYear, double max, int maxYear,
+                      double first, int firstYear, double last, int lastYear) {
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+        this.min = min;
+        this.minYear = minYear;
+        this.max = max;
+        this.maxYear = maxYear;
+        this.first = first;
+        this.firstYear = firstYear;
+        this.last = last;
+        this.lastYear = lastYear;
+    }
+
+    public int getCount() { return count; }
+    public boolean isEmpty() { return count == 0; }
+    public double getMean() { return mean; }
+    public double getVariance() { return variance; }
+    public double getStdDev() { return Math.sqrt(variance); }
+    public double getMin() { return min; }
+    public int getMinYear() { return minYear; }
+    public double getMax() { return max; }
+    public int getMaxYear() { return maxYear; }
+    public double getFirst() { return first; }
+    public int getFirstYear() { return firstYear; }
+    public double getLast() { return last; }
+    public int getLastYear() { return lastYear; }
+    public double getTotalChange() { return last - first; }
+}
@@ -0,0 +1,37 @@
+package data;
+
+/**
+ * The result of a RankingEngine query: country ids and their values, best first (highest for a top ranking,
+ * lowest for a bottom one). Plain arrays, so a leaderboard can be kept and read without any boxing.
+ */
+public final class Ranking {
+    private final CountryDataset dataset;
+    private final RankingEngine.Metric metric;
+    private final boolean highest;
+    private final int minYear;
+    private final int maxYear;
+    private final int[] countryIds;
+    private final double[] values;
+
+    Ranking(CountryDataset dataset, RankingEngine.Metric metric, boolean highest, int minYear, int maxYear, int[] countryIds, double[] values) {
+        this.dataset = dataset;
+        this.metric = metric;
+        this.highest = highest;
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        this.countryIds = countryIds;
+        this.values = values;
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+    public RankingEngine.Metric getMetric() { return metric; }
+    public boolean isHighestFirst() { return highest; }
+    public int getMinYear() { return minYear; }
+    public int getMaxYear() { return maxYear; }
+
+    public int size() { return countryIds.length; }
+    public boolean isEmpty() { return countryIds.length == 0; }
+    public int countryId(int i) { return countryIds[i]; }
+    public String countryName(int i) { return dataset.countryName(countryIds[i]); }
+    public double value(int i) { return values[i]; }
+}
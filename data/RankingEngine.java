@@ -0,0 +1,285 @@
+package data;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Top K / bottom K countries for any year window, e.g. "the 20 highest emitters per capita between 1990 and 2010".
+ *
+ * Every country's value for the window comes from the RangeQueryEngine tables (a couple of lookups, not a loop
+ * over its rows) and goes into a heap that never holds more than K entries, so a query is
+ * O(countries * log K) and nothing gets sorted except the K winners at the end. The countries are split across
+ * the fork/join pool, each part keeps its own heap and the heaps are merged when the parts join.
+ *
+ * Regions, income groups and the world total sit in the same file as the countries. excludingAggregates()
+ * gives a filter that leaves them out, any other IntPredicate over country ids works as well.
+ */
+public final class RankingEngine {
+    public enum Metric {
+        MEAN("Average"), MAX("Peak"), TOTAL("Cumulative"), CHANGE("Change");
+
+        private final String label;
+
+        Metric(String label) { this.label = label; }
+
+        public String getLabel() { return label; }
+    }
+
+    // below this many countries a part is ranked on the current thread
+    private static final int MIN_SPLIT_COUNTRIES = 256;
+
+    private final RangeQueryEngine engine;
+    private final CountryDataset dataset;
+    private final double[] values;
+    private final boolean[] aggregates;
+    private final IntPredicate countriesOnly;
+
+    public RankingEngine(RangeQueryEngine engine) {
+        this.engine = engine;
+        this.dataset = engine.getDataset();
+        this.values = dataset.emissions();
+        this.aggregates = new boolean[dataset.countryCount()];
+        for (int id = 0; id < aggregates.length; id++) {
+            aggregates[id] = isAggregate(dataset.countryName(id));
+        }
+        this.countriesOnly = id -> !aggregates[id];
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+
+    /**
+     * True for names that are a group of countries rather than one: continents, the EU, income groups, the
+     * world total and the "(excl. ...)" and international transport rows of the Our World in Data files
+     */
+    public static boolean isAggregate(String name) {
+        return switch (name) {
+            case "World", "Africa", "Asia", "Europe", "North America", "South America", "Oceania", "Antarctica",
+                 "Kuwaiti Oil Fires" -> true;
+            default -> name.endsWith("income countries")
+                || name.startsWith("European Union")
+                || name.startsWith("International ")
+                || name.contains("(excl.")
+                || name.endsWith("(GCP)");
+        };
+    }
+
+    /**
+     * A filter that only lets single countries through
+     */
+    public IntPredicate excludingAggregates() {
+        return countriesOnly;
+    }
+
+    /**
+     * The k countries with the highest value between minYear and maxYear, highest first. Countries without
+     * data in the window are left out, so the result can be shorter than k. A null filter includes everything.
+     */
+    public Ranking top(Metric metric, int minYear, int maxYear, int k, IntPredicate filter) {
+        return rank(metric, minYear, maxYear, k, filter, true);
+    }
+
+    /**
+     * The k countries with the lowest value, lowest first
+     */
+    public Ranking bottom(Metric metric, int minYear, int maxYear, int k, IntPredicate filter) {
+        return rank(metric, minYear, maxYear, k, filter, false);
+    }
+
+    public Ranking rank(Metric metric, int minYear, int maxYear, int k, IntPredicate filter, boolean highest) {
+        return rank(metric, minYear, maxYear, k, filter, highest, ForkJoinPool.commonPool(), MIN_SPLIT_COUNTRIES);
+    }
+
+    /**
+     * Same as above on the given pool, splitting parts down to minSplit countries
+     */
+    Ranking rank(Metric metric, int minYear, int maxYear, int k, IntPredicate filter, boolean highest,
+                 ForkJoinPool pool, int minSplit) {
+        int countries = dataset.countryCount();
+        int limit = Math.max(0, Math.min(k, countries));
+        IntPredicate include = filter != null ? filter : id -> true;
+        Query query = new Query(metric, minYear, maxYear, limit, include, highest);
+
+        TopK best;
+        if (limit == 0) {
+            best = new TopK(0);
+        } else if (countries <= minSplit) {
+            best = query.scan(0, countries);
+        } else {
+            int split = Math.max(minSplit, countries / (pool.getParallelism() * 4));
+            best = pool.invoke(new RankTask(query, 0, countries, split));
+        }
+        return best.toRanking(dataset, metric, highest, minYear, maxYear);
+    }
+
+    /**
+     * The value of one country for the window, NaN if it has no rows in it
+     */
+    public double value(Metric metric, int countryId, int minYear, int maxYear) {
+        DataSlice slice = dataset.slice(countryId, minYear, maxYear);
+        if (slice.isEmpty()) return Double.NaN;
+        int from = slice.from();
+        int to = slice.to();
+        return switch (metric) {
+            case MEAN -> engine.mean(from, to);
+            case MAX -> values[engine.argMax(from, to)];
+            case TOTAL -> engine.sum(from, to);
+            case CHANGE -> values[to - 1] - values[from];
+        };
+    }
+
+    private final class Query {
+        final Metric metric;
+        final int minYear;
+        final int maxYear;
+        final int k;
+        final IntPredicate include;
+        final boolean highest;
+
+        Query(Metric metric, int minYear, int maxYear, int k, IntPredicate include, boolean highest) {
+            this.metric = metric;
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            this.k = k;
+            this.include = include;
+            this.highest = highest;
+        }
+
+        TopK scan(int fromId, int toId) {
+            TopK best = new TopK(k);
+            for (int id = fromId; id < toId; id++) {
+                if (!include.test(id)) continue;
+                double value = value(metric, id, minYear, maxYear);
+                if (Double.isNaN(value)) continue;
+                // the heap always keeps the largest scores, so a bottom ranking scores by the negative value
+                best.offer(id, highest ? value : -value, value);
+            }
+            return best;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private final class RankTask extends RecursiveTask<TopK> {
+        private final Query query;
+        private final int fromId;
+        private final int toId;
+        private final int split;
+
+        RankTask(Query query, int fromId, int toId, int split) {
+            this.query = query;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.split = split;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (toId - fromId <= split) {
+                return query.scan(fromId, toId);
+            }
+            int middle = (fromId + toId) >>> 1;
+            RankTask right = new RankTask(query, middle, toId, split);
+            right.fork();
+            TopK left = new RankTask(query, fromId, middle, split).compute();
+            left.addAll(right.join());
+            return left;
+        }
+    }
+
+    /**
+     * Keeps the k entries with the largest score (equal scores go to the lower id, so results dont depend on
+     * how the countries were split). A min heap in plain arrays: the root is the weakest entry, the one that
+     * gets pushed out when something better comes along.
+     */
+    private static final class TopK {
+        private final int capacity;
+        private final int[] ids;
+        private final double[] scores;
+        private final double[] values;
+        private int size;
+
+        TopK(int capacity) {
+            this.capacity = capacity;
+            this.ids = new int[capacity];
+            this.scores = new double[capacity];
+            this.values = new double[capacity];
+        }
+
+        void offer(int id, double score, double value) {
+            if (size < capacity) {
+                set(size, id, score, value);
+                siftUp(size++);
+            } else if (capacity > 0 && weaker(0, id, score)) {
+                set(0, id, score, value);
+                siftDown(0);
+            }
+        }
+
+        void addAll(TopK other) {
+            for (int i = 0; i < other.size; i++) {
+                offer(other.ids[i], other.scores[i], other.values[i]);
+            }
+        }
+
+        Ranking toRanking(CountryDataset dataset, Metric metric, boolean highest, int minYear, int maxYear) {
+            // popping the weakest one at a time fills the result from the back
+            int count = size;
+            int[] rankedIds = new int[count];
+            double[] rankedValues = new double[count];
+            for (int at = count - 1; at >= 0; at--) {
+                rankedIds[at] = ids[0];
+                rankedValues[at] = values[0];
+                size--;
+                if (size > 0) {
+                    set(0, ids[size], scores[size], values[size]);
+                    siftDown(0);
+                }
+            }
+            return new Ranking(dataset, metric, highest, minYear, maxYear, rankedIds, rankedValues);
+        }
+
+        // true if the entry at slot i ranks below (id, score)
+        private boolean weaker(int i, int id, double score) {
+            if (scores[i] != score) return scores[i] < score;
+            return ids[i] > id;
+        }
+
+        private boolean weaker(int i, int j) {
+            return weaker(i, ids[j], scores[j]);
+        }
+
+        private void set(int i, int id, double score, double value) {
+            ids[i] = id;
+            scores[i] = score;
+            values[i] = value;
+        }
+
+        private void swap(int i, int j) {
+            int id = ids[i];
+            double score = scores[i];
+            double value = values[i];
+            set(i, ids[j], scores[j], values[j]);
+            set(j, id, score, value);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!weaker(i, parent)) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1;
+                if (left >= size) return;
+                int child = left + 1 < size && weaker(left + 1, left) ? left + 1 : left;
+                if (!weaker(child, i)) return;
+                swap(i, child);
+                i = child;
+            }
+        }
+    }
+}
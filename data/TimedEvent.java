@@ -0,0 +1,31 @@
+package data;
+
+import jdk.jfr.Event;
+
+/**
+ * Base for the Flight Recorder events that are also timed in Metrics, so the recording and the live
+ * numbers come from the same start and end.
+ */
+public abstract class TimedEvent extends Event {
+    // transient so Flight Recorder doesnt write it out, the event already has its own start time
+    private transient long startNanos;
+
+    protected TimedEvent() {
+    }
+
+    /**
+     * Starts the event and the clock for the Metrics timer
+     */
+    protected final void startTiming() {
+        startNanos = System.nanoTime();
+        begin();
+    }
+
+    /**
+     * Commits the event, records the time since startTiming in the named timer and returns it in nanoseconds
+     */
+    protected final long finishTiming(String timer) {
+        commit();
+        return Metrics.timer(timer).recordSince(startNanos);
+    }
+}
@@ -0,0 +1,33 @@
+package data;
+
+/**
+ * What the stats panel shows for one country and year window: the single pass stats plus the median,
+ * quartiles and 10th/90th percentiles. Immutable so one instance can sit in a cache.
+ */
+public final class WindowSummary {
+    public static final WindowSummary EMPTY = new WindowSummary(RangeStats.EMPTY, 0, 0, 0, 0, 0);
+
+    private final RangeStats stats;
+    private final double median;
+    private final double lowerQuartile;
+    private final double upperQuartile;
+    private final double p10;
+    private final double p90;
+
+    public WindowSummary(RangeStats stats, double median, double lowerQuartile, double upperQuartile, double p10, double p90) {
+        this.stats = stats;
+        this.median = median;
+        this.lowerQuartile = lowerQuartile;
+        this.upperQuartile = upperQuartile;
+        this.p10 = p10;
+        this.p90 = p90;
+    }
+
+    public RangeStats getStats() { return stats; }
+    public double getMedian() { return median; }
+    public double getLowerQuartile() { return lowerQuartile; }
+    public double getUpperQuartile() { return upperQuartile; }
+    public double getInterquartileRange() { return upperQuartile - lowerQuartile; }
+    public double getP10() { return p10; }
+    public double getP90() { return p90; }
+}
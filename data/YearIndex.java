@@ -0,0 +1,138 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * The dataset seen the other way round: by year instead of by country. The rows are put in a second order,
+ * grouped by year and inside each year sorted by emission (lowest first), with an offset table saying where each
+ * year starts. Equal values are kept in reverse country order, so counting down from the top a tie goes to the
+ * lower id, the same rule RankingEngine uses. That makes the cross section questions cheap:
+ *
+ *  - every country in 1990 is a YearSlice straight off the offsets, O(1) and no copying
+ *  - the rank of a country in 2015 comes from the inverse order, O(1) once its row is found
+ *  - the countries above some value in a year is one binary search inside that year
+ *
+ * Only the years that actually occur get an offset, so an odd year like 0 or 99999 in the file doesnt make
+ * the table any bigger. It costs two ints per row and is built once per dataset (see DataAnalyser.getYearIndex).
+ */
+public final class YearIndex {
+    private final CountryDataset dataset;
+    private final int[] yearValues;   // the distinct years, ascending
+    private final int[] yearStarts;   // rows of yearValues[y] sit in order[yearStarts[y] .. yearStarts[y + 1])
+    private final int[] order;        // position -> dataset row
+    private final int[] positions;    // dataset row -> position, for ranks
+
+    public YearIndex(CountryDataset dataset) {
+        this.dataset = dataset;
+        int size = dataset.size();
+        int[] years = dataset.years();
+        double[] emissions = dataset.emissions();
+
+        int[] sortedYears = Arrays.copyOf(years, size);
+        Arrays.parallelSort(sortedYears);
+        int yearCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (yearCount == 0 || sortedYears[i] != sortedYears[yearCount - 1]) {
+                sortedYears[yearCount++] = sortedYears[i];
+            }
+        }
+        yearValues = Arrays.copyOf(sortedYears, yearCount);
+
+        // counting sort by year, the rows of a year stay in dataset (country) order
+        int[] slots = new int[size];
+        yearStarts = new int[yearCount + 1];
+        for (int i = 0; i < size; i++) {
+            slots[i] = Arrays.binarySearch(yearValues, years[i]);
+            yearStarts[slots[i] + 1]++;
+        }
+        for (int y = 0; y < yearCount; y++) {
+            yearStarts[y + 1] += yearStarts[y];
+        }
+        int[] next = Arrays.copyOf(yearStarts, yearCount);
+        int[] byYear = new int[size];
+        for (int i = 0; i < size; i++) {
+            byYear[next[slots[i]]++] = i;
+        }
+
+        // every value replaced by its rank among the distinct values, so (rank, row) packs into one sortable long
+        double[] distinct = Arrays.copyOf(emissions, size);
+        Arrays.parallelSort(distinct);
+        int distinctCount = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinctCount == 0 || Double.compare(distinct[i], distinct[distinctCount - 1]) != 0) {
+                distinct[distinctCount++] = distinct[i];
+            }
+        }
+
+        order = new int[size];
+        positions = new int[size];
+        long[] keys = new long[size];
+        for (int p = 0; p < size; p++) {
+            int row = byYear[p];
+            long rank = Arrays.binarySearch(distinct, 0, distinctCount, emissions[row]);
+            // the row goes in flipped, so equal values sort with the higher row (and country id) first
+            keys[p] = (rank << 32) | (Integer.MAX_VALUE - row);
+        }
+        for (int y = 0; y < yearCount; y++) {
+            Arrays.sort(keys, yearStarts[y], yearStarts[y + 1]);
+        }
+        for (int p = 0; p < size; p++) {
+            int row = Integer.MAX_VALUE - (int) keys[p];
+            order[p] = row;
+            positions[row] = p;
+        }
+    }
+
+    public CountryDataset getDataset() { return dataset; }
+
+    int rowAt(int position) { return order[position]; }
+
+    /**
+     * How many different years the dataset has
+     */
+    public int yearCount() { return yearValues.length; }
+
+    /**
+     * Every country that has a value in the year, lowest first. Empty for a year outside the data.
+     */
+    public YearSlice year(int year) {
+        int y = Arrays.binarySearch(yearValues, year);
+        if (y < 0) return new YearSlice(this, year, 0, 0);
+        return new YearSlice(this, year, yearStarts[y], yearStarts[y + 1]);
+    }
+
+    /**
+     * Where a country came in a year, 1 being the highest emission and equal values going to the lower id.
+     * 0 if it has no value for that year.
+     */
+    public int rank(int countryId, int year) {
+        DataSlice rows = dataset.slice(countryId, year, year);
+        if (rows.isEmpty()) return 0;
+        return yearStarts[Arrays.binarySearch(yearValues, year) + 1] - positions[rows.from()];
+    }
+
+    public int rank(String country, int year) {
+        int id = dataset.countryId(country);
+        return id < 0 ? 0 : rank(id, year);
+    }
+
+    /**
+     * The countries whose value in the year is strictly above the threshold, lowest first
+     */
+    public YearSlice above(int year, double threshold) {
+        int y = Arrays.binarySearch(yearValues, year);
+        if (y < 0) return new YearSlice(this, year, 0, 0);
+        double[] emissions = dataset.emissions();
+        int lo = yearStarts[y];
+        int hi = yearStarts[y + 1];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (emissions[order[mid]] <= threshold) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return new YearSlice(this, year, lo, yearStarts[y + 1]);
+    }
+}
@@ -0,0 +1,34 @@
+package data;
+
+/**
+ * A view of every country's value in one year, ordered from the lowest emission to the highest (so i = size() - 1
+ * is the biggest emitter). Like DataSlice it copies nothing, it is a start and end in the YearIndex.
+ */
+public final class YearSlice {
+    private final YearIndex index;
+    private final int year;
+    private final int from;
+    private final int to;
+
+    YearSlice(YearIndex index, int year, int from, int to) {
+        this.index = index;
+        this.year = year;
+        this.from = from;
+        this.to = to;
+    }
+
+    public CountryDataset getDataset() { return index.getDataset(); }
+    public int year() { return year; }
+    public int size() { return to - from; }
+    public boolean isEmpty() { return to <= from; }
+
+    /**
+     * Row in the dataset of the i-th lowest value
+     */
+    public int row(int i) { return index.rowAt(from + i); }
+    public int countryId(int i) { return getDataset().countryAt(row(i)); }
+    public String countryName(int i) { return getDataset().countryName(countryId(i)); }
+    public double emission(int i) { return getDataset().emissionAt(row(i)); }
+
+    public DataRecord record(int i) { return getDataset().record(row(i)); }
+}
@@ -9,7 +9,7 @@ find . -name "*.class" -delete
 
 # Compile only the files we need (excluding test files)
 echo "Compiling Java files..."
-javac --module-path ~/Downloads/javafx-sdk-24.0.2/lib --add-modules javafx.controls,javafx.fxml,javafx.swing ui/MainApp.java data/DataLoader.java data/DataRecord.java data/DataAnalyser.java
+javac --module-path ~/Downloads/javafx-sdk-24.0.2/lib --add-modules javafx.controls,javafx.fxml,javafx.swing ui/*.java data/*.java
 
 # Check if compilation was successful
 if [ $? -eq 0 ]; then
@@ -0,0 +1,18 @@
+#!/bin/bash
+# HTTP API over one dataset, no JavaFX needed.
+#   ./server.sh file.csv [port]              start the server (default port 8080)
+#   ./server.sh --load-test [url] [clients] [seconds] [--etag]   measure a running server
+
+DIR="$(cd "$(dirname "$0")" && pwd)"
+OUT="$DIR/build/server"
+
+if [ ! -f "$OUT/server/ClimateServer.class" ] || [ -n "$(find "$DIR/server" "$DIR/data" -name '*.java' -newer "$OUT/server/ClimateServer.class")" ]; then
+    mkdir -p "$OUT"
+    javac -d "$OUT" "$DIR"/server/*.java "$DIR"/data/*.java >&2 || exit 1
+fi
+
+if [ "$1" = "--load-test" ]; then
+    shift
+    exec java ${JAVA_OPTS} -cp "$OUT" server.LoadTest "$@"
+fi
+exec java ${JAVA_OPTS} -cp "$OUT" server.ClimateServer "$@"
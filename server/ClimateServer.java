@@ -0,0 +1,281 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import data.CountryDataset;
+import data.DataAnalyser;
+import data.DataLoader;
+import data.DataSlice;
+import data.JsonWriter;
+import data.RangeStats;
+import data.Ranking;
+import data.RankingEngine;
+import data.WindowSummary;
+import data.YearSlice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Small HTTP API over one dataset, so dashboards get the same numbers as the desktop app. The CSV is loaded once
+ * at startup and never changes, so every request just reads the shared dataset and its indexes. Each request
+ * runs on its own virtual thread.
+ *
+ *   GET /api/countries
+ *   GET /api/series?country=X&from=1990&to=2020     the yearly values
+ *   GET /api/stats?country=X&from=1990&to=2020      mean, std dev, min/max, median, quartiles...
+ *   GET /api/year?year=2010                         every country in one year, highest first
+ *   GET /api/ranking?from=1990&to=2020&top=10       countries by mean (order=asc for the lowest,
+ *                                                   metric=max|total|change, countriesOnly=true drops regions)
+ *   GET /api/health
+ *
+ * Responses are cached by request and carry an ETag, a matching If-None-Match gets a 304 with no body.
+ */
+public final class ClimateServer {
+
+    /**
+     * Thrown by the handlers to answer with an error status and message
+     */
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final CountryDataset dataset;
+    private final DataAnalyser analyser;
+    private final ResponseCache cache;
+    private HttpServer server;
+
+    public ClimateServer(DataLoader loader) {
+        this.dataset = loader.getDataset();
+        this.analyser = new DataAnalyser(loader);
+        this.cache = new ResponseCache(Integer.getInteger("climate.server.cacheSize", 10_000));
+
+        // build the indexes now instead of on the first requests
+        analyser.getRangeEngine(dataset);
+        analyser.getOrderStatistics(dataset);
+        analyser.getYearIndex(dataset);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: server.sh file.csv [port]");
+            System.exit(2);
+        }
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+
+        long start = System.nanoTime();
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(args[0]);
+        ClimateServer server = new ClimateServer(loader);
+        server.start(port);
+        System.out.printf("Loaded %d rows (%d countries) in %d ms, listening on http://localhost:%d/api/%n",
+            loader.getDataset().size(), loader.getDataset().countryCount(), (System.nanoTime() - start) / 1_000_000, port);
+    }
+
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/api/", this::handle);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) server.stop(0);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    // ========== REQUEST HANDLING ==========
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                throw new ApiException(405, "only GET is supported");
+            }
+            String path = exchange.getRequestURI().getPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+            ResponseCache.Response response;
+            if (path.equals("/api/health")) {
+                // not cached, it reports the cache itself
+                response = cache.create(new JsonWriter().beginObject()
+                    .field("rows", dataset.size())
+                    .field("countries", dataset.countryCount())
+                    .field("cacheEntries", cache.size())
+                    .field("cacheHits", cache.hits())
+                    .field("cacheMisses", cache.misses())
+                    .endObject().toString());
+            } else {
+                response = cache.get(path + "?" + query, () -> route(path, query));
+            }
+
+            exchange.getResponseHeaders().set("ETag", response.etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (response.etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            send(exchange, 200, response.body);
+        } catch (ApiException ex) {
+            send(exchange, ex.status, error(ex.getMessage()));
+        } catch (RuntimeException ex) {
+            send(exchange, 500, error(ex.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String route(String path, Map<String, String> query) {
+        switch (path) {
+            case "/api/countries": return countries();
+            case "/api/series": return series(country(query), from(query), to(query));
+            case "/api/stats": return stats(country(query), from(query), to(query));
+            case "/api/year": return year(intParam(query, "year", null));
+            case "/api/ranking": return ranking(metric(query), from(query), to(query), intParam(query, "top", 10),
+                "asc".equals(query.get("order")), "true".equals(query.get("countriesOnly")));
+            default: throw new ApiException(404, "no such endpoint: " + path);
+        }
+    }
+
+    // ========== ENDPOINTS ==========
+
+    private String countries() {
+        JsonWriter json = new JsonWriter().beginArray();
+        for (String country : dataset.countryNames()) {
+            json.value(country);
+        }
+        return json.endArray().toString();
+    }
+
+    private String series(String country, int from, int to) {
+        DataSlice slice = dataset.slice(country, from, to);
+        JsonWriter json = new JsonWriter().beginObject().field("country", country).name("points").beginArray();
+        for (int i = 0; i < slice.size(); i++) {
+            json.beginObject().field("year", slice.year(i)).field("emission", slice.emission(i)).endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String stats(String country, int from, int to) {
+        WindowSummary summary = analyser.getWindowSummary(dataset.slice(country, from, to));
+        RangeStats stats = summary.getStats();
+        JsonWriter json = new JsonWriter().beginObject().field("country", country).field("count", stats.getCount());
+        if (!stats.isEmpty()) {
+            json.field("mean", stats.getMean())
+                .field("stdDev", stats.getStdDev())
+                .field("min", stats.getMin()).field("minYear", stats.getMinYear())
+                .field("max", stats.getMax()).field("maxYear", stats.getMaxYear())
+                .field("firstYear", stats.getFirstYear()).field("lastYear", stats.getLastYear())
+                .field("totalChange", stats.getTotalChange())
+                .field("median", summary.getMedian())
+                .field("lowerQuartile", summary.getLowerQuartile())
+                .field("upperQuartile", summary.getUpperQuartile())
+                .field("p10", summary.getP10())
+                .field("p90", summary.getP90());
+        }
+        return json.endObject().toString();
+    }
+
+    private String year(int year) {
+        // the year index already has the year sorted, lowest first, so walk it backwards
+        YearSlice slice = analyser.getYearIndex(dataset).year(year);
+        JsonWriter json = new JsonWriter().beginObject().field("year", year).name("countries").beginArray();
+        for (int i = slice.size() - 1; i >= 0; i--) {
+            json.beginObject().field("country", slice.countryName(i)).field("emission", slice.emission(i)).endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private String ranking(RankingEngine.Metric metric, int from, int to, int top, boolean ascending, boolean countriesOnly) {
+        RankingEngine engine = analyser.getRankingEngine(dataset);
+        int k = top > 0 ? top : dataset.countryCount();
+        Ranking ranking = engine.rank(metric, from, to, k, countriesOnly ? engine.excludingAggregates() : null, !ascending);
+
+        String field = metric.name().toLowerCase(Locale.ROOT);
+        JsonWriter json = new JsonWriter().beginObject().name("ranking").beginArray();
+        for (int i = 0; i < ranking.size(); i++) {
+            json.beginObject().field("rank", i + 1).field("country", ranking.countryName(i)).field(field, ranking.value(i)).endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    // ========== HELPERS ==========
+
+    private String country(Map<String, String> query) {
+        String country = query.get("country");
+        if (country == null) throw new ApiException(400, "country is required");
+        if (dataset.countryId(country) < 0) throw new ApiException(404, "unknown country: " + country);
+        return country;
+    }
+
+    private static RankingEngine.Metric metric(Map<String, String> query) {
+        String metric = query.getOrDefault("metric", "mean");
+        try {
+            return RankingEngine.Metric.valueOf(metric.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, "metric must be mean, max, total or change");
+        }
+    }
+
+    private int from(Map<String, String> query) { return intParam(query, "from", Integer.MIN_VALUE); }
+    private int to(Map<String, String> query) { return intParam(query, "to", Integer.MAX_VALUE); }
+
+    private static int intParam(Map<String, String> query, String name, Integer fallback) {
+        String value = query.get(name);
+        if (value == null) {
+            if (fallback == null) throw new ApiException(400, name + " is required");
+            return fallback;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException ex) {
+            throw new ApiException(400, name + " must be a whole number");
+        }
+    }
+
+    /**
+     * Sorted so the same question asked in a different order hits the same cache entry
+     */
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new TreeMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) return query;
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            query.put(key, value);
+        }
+        return query;
+    }
+
+    private static byte[] error(String message) {
+        return new JsonWriter().beginObject().field("error", message).endObject().toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        boolean head = exchange.getRequestMethod().equals("HEAD");
+        exchange.sendResponseHeaders(status, head ? -1 : body.length);
+        if (!head) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package server;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Hammers a running ClimateServer with a mix of series, stats, year, and ranking requests and prints the
+ * latency percentiles and requests per second.
+ *
+ *   java -cp build/server server.LoadTest [baseUrl] [concurrency] [seconds] [--etag]
+ *
+ * Each of the concurrent clients is a virtual thread sending one request after another. With --etag the
+ * clients send back the ETag they got for the same URL, so the 304 path is measured too.
+ */
+public final class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        boolean useEtags = false;
+        for (String arg : args) {
+            if (arg.equals("--etag")) useEtags = true; else positional.add(arg);
+        }
+        String base = positional.size() > 0 ? positional.get(0) : "http://localhost:8080";
+        int concurrency = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 64;
+        int seconds = positional.size() > 2 ? Integer.parseInt(positional.get(2)) : 10;
+
+        HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        List<String> countries = fetchCountries(client, base);
+        if (countries.isEmpty()) throw new IllegalStateException("server returned no countries");
+        System.out.printf("%d countries, %d clients for %d s against %s%s%n",
+            countries.size(), concurrency, seconds, base, useEtags ? " (with ETags)" : "");
+
+        // a short warm up so JIT compilation and the first cache misses dont end up in the numbers
+        run(client, base, countries, Math.min(concurrency, 8), 2_000_000_000L, useEtags);
+        Result result = run(client, base, countries, concurrency, seconds * 1_000_000_000L, useEtags);
+
+        long[] latencies = result.latencies;
+        Arrays.sort(latencies);
+        System.out.printf("requests: %d in %.2f s = %.0f req/s%n", latencies.length, result.elapsedNanos / 1e9,
+            latencies.length / (result.elapsedNanos / 1e9));
+        System.out.printf("latency ms: p50 %.3f  p90 %.3f  p99 %.3f  max %.3f%n",
+            percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+            latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+        System.out.println("status codes: " + result.statuses);
+    }
+
+    private static final class Result {
+        long[] latencies;
+        long elapsedNanos;
+        final TreeMap<Integer, Integer> statuses = new TreeMap<>();
+    }
+
+    private static Result run(HttpClient client, String base, List<String> countries, int concurrency,
+                              long durationNanos, boolean useEtags) throws Exception {
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        List<Future<Worker>> futures = new ArrayList<>();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                Worker worker = new Worker(client, base, countries, new Random(i), useEtags);
+                futures.add(clients.submit(() -> worker.run(deadline)));
+            }
+        }
+
+        Result result = new Result();
+        result.elapsedNanos = System.nanoTime() - start;
+        int total = 0;
+        for (Future<Worker> future : futures) total += future.get().count;
+        result.latencies = new long[total];
+        int at = 0;
+        for (Future<Worker> future : futures) {
+            Worker worker = future.get();
+            System.arraycopy(worker.latencies, 0, result.latencies, at, worker.count);
+            at += worker.count;
+            worker.statuses.forEach((status, n) -> result.statuses.merge(status, n, Integer::sum));
+        }
+        return result;
+    }
+
+    /**
+     * One client: picks a random request, sends it, records how long it took
+     */
+    private static final class Worker {
+        final HttpClient client;
+        final String base;
+        final List<String> countries;
+        final Random random;
+        final boolean useEtags;
+        final HashMap<String, String> etags = new HashMap<>();
+        final TreeMap<Integer, Integer> statuses = new TreeMap<>();
+        long[] latencies = new long[1024];
+        int count;
+
+        Worker(HttpClient client, String base, List<String> countries, Random random, boolean useEtags) {
+            this.client = client;
+            this.base = base;
+            this.countries = countries;
+            this.random = random;
+            this.useEtags = useEtags;
+        }
+
+        Worker run(long deadline) throws Exception {
+            while (System.nanoTime() < deadline) {
+                String url = base + randomPath();
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).GET();
+                String etag = useEtags ? etags.get(url) : null;
+                if (etag != null) request.header("If-None-Match", etag);
+
+                long sent = System.nanoTime();
+                HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                long took = System.nanoTime() - sent;
+
+                if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                latencies[count++] = took;
+                statuses.merge(response.statusCode(), 1, Integer::sum);
+                if (useEtags) response.headers().firstValue("ETag").ifPresent(tag -> etags.put(url, tag));
+            }
+            return this;
+        }
+
+        private String randomPath() {
+            String country = URLEncoder.encode(countries.get(random.nextInt(countries.size())), StandardCharsets.UTF_8);
+            int from = 1900 + random.nextInt(100);
+            int to = from + 1 + random.nextInt(2021 - from);
+            switch (random.nextInt(4)) {
+                case 0: return "/api/series?country=" + country + "&from=" + from + "&to=" + to;
+                case 1: return "/api/stats?country=" + country + "&from=" + from + "&to=" + to;
+                case 2: return "/api/year?year=" + (1950 + random.nextInt(71));
+                default: return "/api/ranking?from=" + from + "&to=" + to + "&top=10";
+            }
+        }
+    }
+
+    private static List<String> fetchCountries(HttpClient client, String base) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(base + "/api/countries")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        List<String> countries = new ArrayList<>();
+        Matcher matcher = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(response.body());
+        while (matcher.find()) {
+            countries.add(matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+        }
+        return countries;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
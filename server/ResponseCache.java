@@ -0,0 +1,73 @@
+package server;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Finished response bodies keyed by the normalised request (path plus sorted query), with a size limit that
+ * throws out the least recently used entry. The dataset never changes while the server runs, so entries
+ * never go stale. Every body gets an ETag made from a checksum and the length of its bytes, so the same
+ * answer keeps the same tag even after a restart.
+ */
+final class ResponseCache {
+
+    static final class Response {
+        final byte[] body;
+        final String etag;
+
+        Response(byte[] body, String etag) {
+            this.body = body;
+            this.etag = etag;
+        }
+    }
+
+    private final int capacity;
+    private final Map<String, Response> entries;
+    private long hits;
+    private long misses;
+
+    ResponseCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Response> eldest) {
+                return size() > ResponseCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached response or builds it. Building happens outside the lock so a slow ranking doesnt
+     * hold up every other request (two threads might build the same one, the result is identical).
+     */
+    Response get(String key, Supplier<String> build) {
+        synchronized (this) {
+            Response cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+        Response response = create(build.get());
+        synchronized (this) {
+            entries.put(key, response);
+        }
+        return response;
+    }
+
+    Response create(String json) {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        String etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+        return new Response(body, etag);
+    }
+
+    synchronized long hits() { return hits; }
+    synchronized long misses() { return misses; }
+    synchronized int size() { return entries.size(); }
+}
@@ -0,0 +1,69 @@
+package cli;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClimateCliTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void helpStopsBeforeTheFilesAreChecked() {
+        assertFalse(new ClimateCli().parse(new String[] { "-h" }));
+        assertFalse(new ClimateCli().parse(new String[] { "a.csv", "--help" }));
+        assertTrue(new ClimateCli().parse(new String[] { "a.csv" }));
+    }
+
+    @Test
+    void badArgumentsAreRejected() {
+        String[][] bad = {
+            {},
+            { "--report", "averages" },
+            { "--report", "medians", "a.csv" },
+            { "--report", "year=20x", "a.csv" },
+            { "--format", "xml", "a.csv" },
+            { "--top", "ten", "a.csv" },
+            { "a.csv", "--from" },
+            { "--verbose", "a.csv" },
+        };
+        for (String[] args : bad) {
+            assertThrows(IllegalArgumentException.class, () -> new ClimateCli().parse(args), String.join(" ", args));
+        }
+    }
+
+    @Test
+    void writesOneFilePerReport() throws IOException {
+        Path csv = Files.write(dir.resolve("co2.csv"), String.join("\n",
+            "Entity,Year,Value", "Brazil,2000,2.0", "Brazil,2001,4.0", "Chad,2000,0.5", "Chad,2001,NaN", "")
+            .getBytes(StandardCharsets.UTF_8));
+        Path out = dir.resolve("out");
+        ClimateCli cli = new ClimateCli();
+        assertTrue(cli.parse(new String[] { "-r", "averages, MinMax,year=2001", "-f", "csv", "-o", out.toString(), csv.toString() }));
+        assertEquals(0, cli.run());
+
+        assertEquals("country,mean\nBrazil,3.000000\nChad,\n", read(out.resolve("co2_averages.csv")));
+        assertEquals("country,min,max,count\nBrazil,2.000000,4.000000,2\nChad,,,2\n", read(out.resolve("co2_minmax.csv")));
+        assertEquals("country,year,emission\nBrazil,2001,4.000000\nChad,2001,\n", read(out.resolve("co2_year-2001.csv")));
+    }
+
+    @Test
+    void aMissingFileFailsWithoutStoppingTheOthers() throws IOException {
+        Path csv = Files.write(dir.resolve("ok.csv"), "Entity,Year,Value\nChad,2000,0.5\n".getBytes(StandardCharsets.UTF_8));
+        Path out = dir.resolve("out");
+        ClimateCli cli = new ClimateCli();
+        cli.parse(new String[] { "-r", "ranking", "-f", "json", "-o", out.toString(), dir.resolve("missing.csv").toString(), csv.toString() });
+        assertEquals(1, cli.run());
+        assertTrue(read(out.resolve("ok_ranking.json")).contains("{\"rank\":1,\"country\":\"Chad\",\"mean\":0.500000}"));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
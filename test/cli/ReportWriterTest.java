@@ -0,0 +1,55 @@
+package cli;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportWriterTest {
+
+    private static ReportTable table() {
+        ReportTable table = new ReportTable("in.csv", "minmax", List.of("country", "min", "max", "count"));
+        table.add("Korea, Republic of", 1.5, Double.NaN, 3);
+        table.add("The \"Bahamas\"", -0.25, 2.0, 12L);
+        table.add("Back\\slash\ttab", Double.POSITIVE_INFINITY, 0.0, 0);
+        table.add(null, 1.0, 1.0, 1);
+        return table;
+    }
+
+    @Test
+    void csvQuotesFieldsAndLeavesNaNEmpty() throws IOException {
+        assertEquals(String.join("\n",
+            "country,min,max,count",
+            "\"Korea, Republic of\",1.500000,,3",
+            "\"The \"\"Bahamas\"\"\",-0.250000,2.000000,12",
+            "Back\\slash\ttab,Infinity,0.000000,0",
+            ",1.000000,1.000000,1",
+            ""), write(ReportWriter.Format.CSV, false));
+    }
+
+    @Test
+    void csvBannerSeparatesTables() throws IOException {
+        String out = write(ReportWriter.Format.CSV, true);
+        assertTrue(out.startsWith("# in.csv, minmax\ncountry,min,max,count\n"), out);
+        assertTrue(out.endsWith("\n\n"), out);
+    }
+
+    @Test
+    void jsonEscapesStringsAndWritesNaNAsNull() throws IOException {
+        assertEquals("{\"source\":\"in.csv\",\"report\":\"minmax\",\"rows\":["
+            + "{\"country\":\"Korea, Republic of\",\"min\":1.500000,\"max\":null,\"count\":3},"
+            + "{\"country\":\"The \\\"Bahamas\\\"\",\"min\":-0.250000,\"max\":2.000000,\"count\":12},"
+            + "{\"country\":\"Back\\\\slash\\ttab\",\"min\":null,\"max\":0.000000,\"count\":0},"
+            + "{\"country\":null,\"min\":1.000000,\"max\":1.000000,\"count\":1}]}\n",
+            write(ReportWriter.Format.JSON, true));
+    }
+
+    private static String write(ReportWriter.Format format, boolean banner) throws IOException {
+        StringWriter out = new StringWriter();
+        new ReportWriter(format).write(table(), out, banner);
+        return out.toString();
+    }
+}
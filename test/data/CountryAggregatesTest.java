@@ -0,0 +1,131 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountryAggregatesTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesAPlainLoopAtAnyParallelism() {
+        Random random = new Random(9);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int i = 0; i < 300_000; i++) {
+            builder.add("C" + random.nextInt(2_000), 1800 + random.nextInt(200), random.nextGaussian() * 10);
+        }
+        CountryDataset dataset = builder.build();
+
+        for (int parallelism : new int[] { 1, 3, 8 }) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                CountryAggregates aggregates = CountryAggregates.of(dataset, pool);
+                for (int id = 0; id < dataset.countryCount(); id++) {
+                    int count = 0;
+                    double sum = 0;
+                    double min = Double.POSITIVE_INFINITY;
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int row = dataset.countryStart(id); row < dataset.countryEnd(id); row++) {
+                        double x = dataset.emissionAt(row);
+                        count++;
+                        sum += x;
+                        min = Math.min(min, x);
+                        max = Math.max(max, x);
+                    }
+                    assertEquals(count, aggregates.count(id));
+                    assertEquals(sum, aggregates.sum(id), 1e-9 * Math.max(1, Math.abs(sum)));
+                    assertEquals(min, aggregates.min(id));
+                    assertEquals(max, aggregates.max(id));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void countriesWithoutRowsGetNaN() {
+        // B sits between two countries with rows, D comes after the last one
+        String[] names = { "A", "B", "C", "D" };
+        CountryDataset dataset = CountryDataset.fromColumns(names,
+            new int[] { 0, 0, 2 }, new int[] { 0, 2, 2, 3, 3 }, new int[] { 2000, 2001, 2000 }, new double[] { 1, 3, 5 }, 3);
+        CountryAggregates aggregates = CountryAggregates.of(dataset);
+
+        assertEquals(2, aggregates.count(0));
+        assertEquals(2, aggregates.mean(0));
+        assertEquals(1, aggregates.min(0));
+        assertEquals(3, aggregates.max(0));
+        for (int empty : new int[] { 1, 3 }) {
+            assertEquals(0, aggregates.count(empty));
+            assertEquals(0, aggregates.mean(empty));
+            assertTrue(Double.isNaN(aggregates.min(empty)), names[empty]);
+            assertTrue(Double.isNaN(aggregates.max(empty)), names[empty]);
+        }
+    }
+
+    @Test
+    void aNaNRowMakesEveryStatNaN() {
+        // enough rows that the parallel split puts NaN rows on both sides of a merge
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int year = 0; year < 50_000; year++) {
+            builder.add("A", year, year == 30_000 ? Double.NaN : 1.0);
+            builder.add("B", year, 2.0);
+            builder.add("C", year, Double.NaN);
+        }
+        CountryDataset dataset = builder.build();
+        for (int parallelism : new int[] { 1, 4 }) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                CountryAggregates aggregates = CountryAggregates.of(dataset, pool);
+                for (int id : new int[] { 0, 2 }) {
+                    assertEquals(50_000, aggregates.count(id));
+                    assertTrue(Double.isNaN(aggregates.sum(id)), dataset.countryName(id));
+                    assertTrue(Double.isNaN(aggregates.min(id)), dataset.countryName(id));
+                    assertTrue(Double.isNaN(aggregates.max(id)), dataset.countryName(id));
+                }
+                assertEquals(2.0, aggregates.min(1));
+                assertEquals(2.0, aggregates.max(1));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void minMaxReportMatchesSummarizingWithNaNRows() throws IOException {
+        Path csv = Files.write(dir.resolve("nan.csv"), String.join("\n",
+            "Entity,Year,Value", "A,2000,1.0", "A,2001,NaN", "B,2000,NaN", "C,2000,3.0", "")
+            .getBytes(StandardCharsets.UTF_8));
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(csv.toString(), DataLoader.ParseMode.BUFFERED);
+        Map<String, DoubleSummaryStatistics> stats = new DataAnalyser(loader).getMinMaxEmissions();
+        for (String country : new String[] { "A", "B", "C" }) {
+            DoubleSummaryStatistics expected = loader.getData().stream()
+                .filter(record -> record.getCountry().equals(country))
+                .collect(Collectors.summarizingDouble(DataRecord::getEmission));
+            DoubleSummaryStatistics actual = stats.get(country);
+            assertEquals(expected.getCount(), actual.getCount(), country);
+            assertEquals(expected.getMin(), actual.getMin(), country);
+            assertEquals(expected.getMax(), actual.getMax(), country);
+            assertEquals(expected.getSum(), actual.getSum(), country);
+        }
+    }
+
+    @Test
+    void emptyDatasetHasNoRows() {
+        CountryAggregates aggregates = CountryAggregates.of(CountryDataset.empty());
+        assertEquals(0, aggregates.countryCount());
+    }
+}
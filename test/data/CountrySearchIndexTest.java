@@ -0,0 +1,93 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountrySearchIndexTest {
+    private static final List<String> NAMES = Arrays.asList(
+        "Afghanistan", "Andorra", "Angola", "Bosnia and Herzegovina", "Curaçao", "Côte d'Ivoire", "France",
+        "Japan", "Pakistan", "Réunion", "São Tomé and Príncipe", "South Africa", "Sudan", "Tanzania",
+        "United Arab Emirates", "United Kingdom", "United States", "Unitedland");
+
+    private final CountrySearchIndex index = new CountrySearchIndex(NAMES);
+
+    @Test
+    void accentsAndCaseAreIgnored() {
+        assertEquals(List.of("Côte d'Ivoire"), find("cote d'ivoire"));
+        assertEquals(List.of("Côte d'Ivoire"), find("CÔTE"));
+        assertEquals(List.of("Curaçao"), find("curacao"));
+        assertEquals(List.of("Réunion"), find("reunion"));
+        assertEquals(List.of("São Tomé and Príncipe"), find("sao tome"));
+        assertEquals("cote d'ivoire", CountrySearchIndex.normalize("Côte d'Ivoire"));
+    }
+
+    @Test
+    void namePrefixesComeBeforeWordPrefixesBeforeTheRest() {
+        // "an": Andorra and Angola start with it, "and" in Bosnia and Herzegovina starts a word, the rest contain it
+        assertEquals(List.of("Andorra", "Angola", "Bosnia and Herzegovina", "São Tomé and Príncipe",
+            "Afghanistan", "France", "Japan", "Pakistan", "Sudan", "Tanzania", "Unitedland"), find("an"));
+        assertEquals(List.of("Afghanistan", "South Africa"), find("af"));
+        assertEquals(List.of("São Tomé and Príncipe", "South Africa", "Sudan", "United States"), find("s").subList(0, 4));
+    }
+
+    @Test
+    void leadingSpacesAreIgnoredButATrailingSpaceEndsTheWord() {
+        assertEquals(find("united"), find("   united"));
+        assertEquals(List.of("United Arab Emirates", "United Kingdom", "United States", "Unitedland"), find("united"));
+        assertEquals(List.of("United Arab Emirates", "United Kingdom", "United States"), find("united "));
+        assertEquals(NAMES.size(), index.search("   ").size());
+    }
+
+    @Test
+    void narrowingThePreviousResultGivesTheSameAsSearchingAgain() {
+        Random random = new Random(5);
+        for (int round = 0; round < 500; round++) {
+            String target = CountrySearchIndex.normalize(NAMES.get(random.nextInt(NAMES.size())));
+            int start = random.nextInt(target.length());
+            // type the query one letter at a time, sometimes with a letter that doesnt belong
+            CountrySearchIndex.Result previous = null;
+            StringBuilder typed = new StringBuilder();
+            for (int i = start; i < target.length(); i++) {
+                typed.append(random.nextInt(20) == 0 ? 'z' : target.charAt(i));
+                previous = index.search(typed.toString(), previous);
+                assertEquals(find(typed.toString()), index.names(previous, Integer.MAX_VALUE), "query " + typed);
+            }
+            // and backspace back to the start, which must not narrow
+            while (typed.length() > 0) {
+                typed.setLength(typed.length() - 1);
+                previous = index.search(typed.toString(), previous);
+                assertEquals(find(typed.toString()), index.names(previous, Integer.MAX_VALUE), "query " + typed);
+            }
+        }
+    }
+
+    @Test
+    void matchesEveryNameContainingTheQuery() {
+        for (String query : new String[] { "a", "an", "ani", "stan", "united k", "xyz", "d'i", "e " }) {
+            List<String> expected = new ArrayList<>();
+            String key = CountrySearchIndex.normalize(query);
+            for (String name : NAMES) {
+                if (CountrySearchIndex.normalize(name).contains(key)) expected.add(name);
+            }
+            List<String> found = new ArrayList<>(find(query));
+            found.sort(null);
+            expected.sort(null);
+            assertEquals(expected, found, query);
+        }
+    }
+
+    @Test
+    void namesRespectsTheLimit() {
+        assertEquals(3, index.names(index.search("a"), 3).size());
+    }
+
+    private List<String> find(String query) {
+        return index.names(index.search(query), Integer.MAX_VALUE);
+    }
+}
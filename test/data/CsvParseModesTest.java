@@ -0,0 +1,170 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The MAPPED and PARALLEL loaders have to read every file exactly like the original BUFFERED reader
+ * (readLine + split(",")), so each fixture is loaded all three ways and the columns compared bit for bit.
+ */
+class CsvParseModesTest {
+    @TempDir
+    Path dir;
+
+    private static final String AWKWARD_ROWS = String.join("\n",
+        "\uFEFFEntity,Year,Annual CO2 emissions (per capita)",
+        "Albania,1990,1.6780",
+        "",
+        "Albania,1991,1.5e3",
+        "Albania,1992,2E+2",
+        "Albania,1993,7e-5",
+        "Albania,1994,1e-30",
+        "Albania,1995,1e300",
+        "\"Brazil\",2000,0.12345678901234567",
+        "\"Brazil\",2001,12345678901234567890",
+        "\"Brazil\",2002,3.141592653589793238",
+        "\"Brazil\",2003,0.000000000000000000001",
+        "Chad,+2001,-1.25",
+        "Chad,2002,+3",
+        "Chad,2003, 1.5",
+        "Chad,2004,4.0,extra,fields",
+        "Chad,2005,5.5,",
+        "Chad,2006",
+        "Chad,2007,",
+        "Chad",
+        "",
+        "Denmark,2010,NaN",
+        "Denmark,2011,0",
+        "Denmark,2009,-0.0",
+        "Égypte,2020,9.87654321") + "\n";
+
+    @Test
+    void awkwardRowsMatchTheBufferedReader() throws IOException {
+        assertAllModesMatch(write("awkward.csv", AWKWARD_ROWS));
+    }
+
+    @Test
+    void crlfLineEndingsMatchTheBufferedReader() throws IOException {
+        assertAllModesMatch(write("crlf.csv", AWKWARD_ROWS.replace("\n", "\r\n")));
+    }
+
+    @Test
+    void lastLineWithoutNewlineIsStillRead() throws IOException {
+        Path file = write("no-newline.csv", "Entity,Year,Value\nA,2000,1.5\nB,2001,2.5");
+        CountryDataset dataset = assertAllModesMatch(file);
+        assertEquals(2, dataset.size());
+        assertEquals(2.5, dataset.emissionAt(1));
+    }
+
+    @Test
+    void quotedFieldWithACommaFailsTheSameWayInEveryMode() throws IOException {
+        Path file = write("quoted.csv", "Entity,Year,Value\nA,2000,1.5\n\"Korea, Rep.\",2000,2.5\n");
+        for (DataLoader.ParseMode mode : DataLoader.ParseMode.values()) {
+            assertThrows(NumberFormatException.class, () -> new DataLoader().loadCSV(file.toString(), mode), mode.name());
+        }
+    }
+
+    @Test
+    void headerOnlyAndEmptyFilesGiveEmptyDatasets() throws IOException {
+        assertTrue(assertAllModesMatch(write("header.csv", "Entity,Year,Value\n")).isEmpty());
+        assertTrue(assertAllModesMatch(write("empty.csv", "")).isEmpty());
+    }
+
+    @Test
+    void chunkCutsInTheMiddleOfLinesGiveTheSameRows() throws IOException {
+        // lots of small ranges, so the cuts land mid line, on line starts and on blank lines
+        for (String content : new String[] { AWKWARD_ROWS, AWKWARD_ROWS.replace("\n", "\r\n") }) {
+            Path file = write("chunks.csv", content);
+            CountryDataset expected = load(file, DataLoader.ParseMode.BUFFERED);
+            for (int threads = 2; threads <= 40; threads++) {
+                assertSameDataset(expected, parseInChunks(file, threads), threads + " chunks");
+            }
+        }
+    }
+
+    @Test
+    void chunkedLoadOfABiggerShuffledFileMatches() throws IOException {
+        Random random = new Random(3);
+        StringBuilder csv = new StringBuilder("Entity,Year,Value\n");
+        for (int i = 0; i < 20_000; i++) {
+            csv.append("Country").append(random.nextInt(300)).append(',')
+                .append(1750 + random.nextInt(275)).append(',')
+                .append(random.nextDouble() * Math.pow(10, random.nextInt(8) - 4)).append('\n');
+        }
+        Path file = write("big.csv", csv.toString());
+        CountryDataset expected = assertAllModesMatch(file);
+        for (int threads : new int[] { 3, 7, 16 }) {
+            assertSameDataset(expected, parseInChunks(file, threads), threads + " chunks");
+        }
+    }
+
+    @Test
+    void fastDoubleParsingAgreesWithDoubleParseDouble() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100_000; i++) {
+            String text = switch (i % 4) {
+                case 0 -> Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+                case 1 -> String.format(Locale.ROOT, "%.4f", random.nextDouble() * 100);
+                case 2 -> Long.toString(random.nextLong() >>> random.nextInt(64)) + "." + random.nextInt(1000);
+                default -> (random.nextBoolean() ? "-" : "") + random.nextInt(100000) + "e" + (random.nextInt(50) - 25);
+            };
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            double parsed = MappedCsvParser.parseDouble(ByteBuffer.wrap(bytes), 0, bytes.length);
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(text)), Double.doubleToLongBits(parsed), text);
+        }
+    }
+
+    /**
+     * Loads the file in every mode, checks they all agree with BUFFERED and returns that dataset
+     */
+    private static CountryDataset assertAllModesMatch(Path file) throws IOException {
+        DataLoader reference = new DataLoader();
+        reference.loadCSV(file.toString(), DataLoader.ParseMode.BUFFERED);
+        for (DataLoader.ParseMode mode : new DataLoader.ParseMode[] { DataLoader.ParseMode.MAPPED, DataLoader.ParseMode.PARALLEL }) {
+            DataLoader loader = new DataLoader();
+            loader.loadCSV(file.toString(), mode);
+            assertEquals(reference.getHeaders(), loader.getHeaders(), mode.name());
+            assertSameDataset(reference.getDataset(), loader.getDataset(), mode.name());
+        }
+        return reference.getDataset();
+    }
+
+    private static CountryDataset load(Path file, DataLoader.ParseMode mode) throws IOException {
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(file.toString(), mode);
+        return loader.getDataset();
+    }
+
+    private static CountryDataset parseInChunks(Path file, int threads) throws IOException {
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        List<String> headers = MappedCsvParser.parseParallel(file, builder, threads, 1);
+        assertNotNull(headers);
+        return builder.build();
+    }
+
+    static void assertSameDataset(CountryDataset expected, CountryDataset actual, String message) {
+        assertEquals(expected.countryNames(), actual.countryNames(), message);
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.countryAt(i), actual.countryAt(i), message + ", row " + i);
+            assertEquals(expected.yearAt(i), actual.yearAt(i), message + ", row " + i);
+            assertEquals(Double.doubleToRawLongBits(expected.emissionAt(i)), Double.doubleToRawLongBits(actual.emissionAt(i)),
+                message + ", row " + i);
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,88 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataAnalyserTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void emissionsByYearKeepCountryOrderAndRankedSortsThem() throws IOException {
+        Path csv = Files.write(dir.resolve("year.csv"), String.join("\n",
+            "Entity,Year,Value", "Chad,2000,0.1", "Brazil,2000,2.0", "Angola,2000,0.9", "Brazil,2001,2.2", "Denmark,2000,2.0", "")
+            .getBytes(StandardCharsets.UTF_8));
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(csv.toString(), DataLoader.ParseMode.BUFFERED);
+        DataAnalyser analyser = new DataAnalyser(loader);
+
+        List<DataRecord> byCountry = analyser.getEmissionsByYear(2000);
+        assertEquals(List.of("Angola", "Brazil", "Chad", "Denmark"), countries(byCountry));
+        byCountry.remove(0);   // still a plain list the caller owns
+
+        assertEquals(List.of("Brazil", "Denmark", "Angola", "Chad"), countries(analyser.getEmissionsByYearRanked(2000)));
+        assertTrue(analyser.getEmissionsByYear(1999).isEmpty());
+        assertTrue(analyser.getEmissionsByYearRanked(1999).isEmpty());
+    }
+
+    @Test
+    void countryStatsMatchTheRangeEngineAndALoop() {
+        Random random = new Random(13);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 30; c++) {
+            int first = 1850 + random.nextInt(50);
+            for (int year = first; year < 2020; year++) {
+                builder.add("C" + c, year, 1e6 + random.nextInt(40) * 0.5);
+            }
+        }
+        CountryDataset dataset = builder.build();
+        DataAnalyser analyser = new DataAnalyser(new DataLoader());
+        RangeQueryEngine engine = new RangeQueryEngine(dataset);
+
+        for (int round = 0; round < 2_000; round++) {
+            int id = random.nextInt(dataset.countryCount());
+            int minYear = 1840 + random.nextInt(190);
+            int maxYear = minYear + random.nextInt(round % 4 == 0 ? 3 : 150);
+            DataSlice slice = dataset.slice(id, minYear, maxYear);
+            RangeStats stats = analyser.getCountryStats(slice);
+            RangeStats expected = engine.query(slice);
+            String window = dataset.countryName(id) + " " + minYear + "-" + maxYear;
+            if (slice.isEmpty()) {
+                assertSame(RangeStats.EMPTY, stats, window);
+                continue;
+            }
+
+            double sum = 0;
+            for (int i = slice.from(); i < slice.to(); i++) sum += dataset.emissionAt(i);
+            assertEquals(sum / slice.size(), stats.getMean(), 1e-6, window);
+
+            assertEquals(expected.getCount(), stats.getCount(), window);
+            assertEquals(expected.getMean(), stats.getMean(), 1e-6, window);
+            assertEquals(expected.getVariance(), stats.getVariance(), 1e-6, window);
+            // ties go to the earliest year in both
+            assertEquals(expected.getMin(), stats.getMin(), window);
+            assertEquals(expected.getMinYear(), stats.getMinYear(), window);
+            assertEquals(expected.getMax(), stats.getMax(), window);
+            assertEquals(expected.getMaxYear(), stats.getMaxYear(), window);
+            assertEquals(expected.getFirstYear(), stats.getFirstYear(), window);
+            assertEquals(expected.getLastYear(), stats.getLastYear(), window);
+            assertEquals(expected.getTotalChange(), stats.getTotalChange(), window);
+        }
+    }
+
+    private static List<String> countries(List<DataRecord> records) {
+        List<String> names = new ArrayList<>();
+        for (DataRecord record : records) names.add(record.getCountry());
+        return names;
+    }
+}
@@ -0,0 +1,139 @@
+package data;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A snapshot that is accepted when it shouldnt be means wrong data on every launch after, so these check that any
+ * change to the CSV or damage to the snapshot makes open() give up and the loader parse the CSV again.
+ */
+class DatasetSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private String userHome;
+    private Path csv;
+    private Path snapshot;
+
+    @BeforeEach
+    void writeCsvAndSnapshot() throws IOException {
+        // the fallback location is under user.home, keep it inside the temp folder
+        userHome = System.getProperty("user.home");
+        System.setProperty("user.home", dir.resolve("home").toString());
+
+        StringBuilder text = new StringBuilder("Entity,Year,Value\n");
+        for (int c = 0; c < 40; c++) {
+            for (int year = 1900; year < 2000; year++) {
+                text.append("Country ").append(c).append(',').append(year).append(',')
+                    .append(String.format(Locale.ROOT, "%.4f", c + (year - 1900) / 100.0)).append('\n');
+            }
+        }
+        csv = Files.write(dir.resolve("data.csv"), text.toString().getBytes(StandardCharsets.UTF_8));
+        snapshot = dir.resolve("data.csv.snapshot");
+
+        new DataLoader().loadCSV(csv.toString());
+        assertTrue(Files.isRegularFile(snapshot));
+        assertNotNull(DatasetSnapshot.open(csv));
+    }
+
+    @AfterEach
+    void restoreUserHome() {
+        System.setProperty("user.home", userHome);
+    }
+
+    @Test
+    void snapshotGivesTheSameDataAsParsing() throws IOException {
+        DatasetSnapshot opened = DatasetSnapshot.open(csv);
+        DataLoader parsed = new DataLoader();
+        parsed.loadCSV(csv.toString(), DataLoader.ParseMode.BUFFERED);
+        assertEquals(parsed.getHeaders(), opened.headers());
+        CsvParseModesTest.assertSameDataset(parsed.getDataset(), opened.dataset(), "snapshot");
+    }
+
+    @Test
+    void changedSizeIsRejected() throws IOException {
+        Files.write(csv, "Zed,2000,1.0\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        assertNull(DatasetSnapshot.open(csv));
+
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(csv.toString());
+        assertTrue(loader.getDataset().countryId("Zed") >= 0);
+    }
+
+    @Test
+    void changedModifiedTimeIsRejected() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(csv);
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(modified.toMillis() + 2000));
+        assertNull(DatasetSnapshot.open(csv));
+    }
+
+    @Test
+    void changedBytesWithTheSameSizeAndTimeAreRejected() throws IOException {
+        FileTime modified = Files.getLastModifiedTime(csv);
+        byte[] bytes = Files.readAllBytes(csv);
+        // the first data row sits in the first sampled block
+        int digit = new String(bytes, StandardCharsets.UTF_8).indexOf("0.0000");
+        bytes[digit] = '9';
+        Files.write(csv, bytes);
+        Files.setLastModifiedTime(csv, modified);
+
+        assertNull(DatasetSnapshot.open(csv));
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(csv.toString());
+        assertEquals(9.0, loader.getDataset().emissionAt(0));
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected() throws IOException {
+        byte[] whole = Files.readAllBytes(snapshot);
+        for (int length : new int[] { 0, 3, 8, 20, 47, whole.length / 2, whole.length - 8, whole.length - 1 }) {
+            Files.write(snapshot, Arrays.copyOf(whole, length));
+            assertNull(DatasetSnapshot.open(csv), "cut to " + length + " bytes");
+        }
+    }
+
+    @Test
+    void damagedSnapshotIsRejectedOrStillCorrect() throws IOException {
+        byte[] whole = Files.readAllBytes(snapshot);
+        CountryDataset expected = DatasetSnapshot.open(csv).dataset();
+        // every byte of the head and a spread of the columns, padding bytes can change without harm
+        for (int position = 0; position < whole.length; position += position < 2048 ? 1 : 97) {
+            byte[] damaged = whole.clone();
+            damaged[position] ^= 0x10;
+            Files.write(snapshot, damaged);
+            DatasetSnapshot opened = DatasetSnapshot.open(csv);
+            if (opened != null) {
+                CsvParseModesTest.assertSameDataset(expected, opened.dataset(), "byte " + position + " changed");
+            }
+        }
+    }
+
+    @Test
+    void failedWriteLeavesNoTempFile() throws IOException {
+        Files.delete(snapshot);
+        // a folder in the way of the snapshot makes the final move fail
+        Files.createDirectories(snapshot.resolve("in-the-way"));
+        Files.createDirectories(dir.resolve("home").resolve(".climate-visualiser").resolve("cache").getParent());
+        Files.createFile(dir.resolve("home").resolve(".climate-visualiser").resolve("cache"));
+
+        DatasetSnapshot.save(csv, List.of("Entity", "Year", "Value"), CountryDataset.empty());
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLruCacheTest {
+    private static final long V1 = 1;
+    private static final long V2 = 2;
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        LongLruCache<String> cache = new LongLruCache<>(3);
+        cache.put(V1, 1, "a");
+        cache.put(V1, 2, "b");
+        cache.put(V1, 3, "c");
+        assertEquals("a", cache.get(V1, 1));   // 1 is now the newest, 2 the oldest
+
+        cache.put(V1, 4, "d");
+        assertNull(cache.get(V1, 2));
+        assertEquals("a", cache.get(V1, 1));
+        assertEquals("c", cache.get(V1, 3));
+        assertEquals("d", cache.get(V1, 4));
+
+        cache.put(V1, 5, "e");                  // 1 was used longest ago
+        assertNull(cache.get(V1, 1));
+        assertEquals(3, cache.size());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    void replacingAValueDoesntEvict() {
+        LongLruCache<String> cache = new LongLruCache<>(2);
+        cache.put(V1, 1, "a");
+        cache.put(V1, 2, "b");
+        cache.put(V1, 1, "a2");
+        cache.put(V1, 3, "c");                  // 2 is the oldest after 1 was replaced
+        assertEquals("a2", cache.get(V1, 1));
+        assertNull(cache.get(V1, 2));
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        LongLruCache<String> cache = new LongLruCache<>(4);
+        AtomicInteger computed = new AtomicInteger();
+        for (int round = 0; round < 3; round++) {
+            for (long key = 0; key < 4; key++) {
+                cache.computeIfAbsent(V1, key, k -> {
+                    computed.incrementAndGet();
+                    return "v" + k;
+                });
+            }
+        }
+        assertEquals(4, computed.get());
+        assertEquals(4, cache.misses());
+        assertEquals(8, cache.hits());
+        assertEquals(8 / 12.0, cache.hitRatio(), 1e-12);
+        assertEquals(0, cache.evictions());
+    }
+
+    @Test
+    void aNewerVersionEmptiesTheCache() {
+        LongLruCache<String> cache = new LongLruCache<>(4);
+        cache.put(V1, 1, "old");
+        assertEquals("new", cache.computeIfAbsent(V2, 1, k -> "new"));
+        assertEquals(V2, cache.version());
+        assertEquals(1, cache.size());
+        assertEquals("new", cache.get(V2, 1));
+    }
+
+    @Test
+    void anOlderVersionNeitherReadsNorWrites() {
+        LongLruCache<String> cache = new LongLruCache<>(4);
+        cache.put(V2, 1, "new");
+
+        // a task for the previous file finishing late
+        assertNull(cache.get(V1, 1));
+        cache.put(V1, 2, "stale");
+        assertEquals("stale", cache.computeIfAbsent(V1, 3, k -> "stale"));
+
+        assertEquals(V2, cache.version());
+        assertEquals(1, cache.size());
+        assertEquals("new", cache.get(V2, 1));
+        assertNull(cache.get(V2, 2));
+        assertNull(cache.get(V2, 3));
+    }
+
+    @Test
+    void staleTasksCantPoisonANewerVersion() throws InterruptedException {
+        LongLruCache<Long> cache = new LongLruCache<>(64);
+        AtomicInteger wrong = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long version = t % 2 == 0 ? V1 : V2;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    long key = i % 100;
+                    if (cache.computeIfAbsent(version, key, k -> version) != version) wrong.incrementAndGet();
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(0, wrong.get());
+
+        assertEquals(V2, cache.version());
+        for (long key = 0; key < 100; key++) {
+            Long value = cache.get(V2, key);
+            assertTrue(value == null || value == V2, "key " + key + " holds " + value);
+        }
+    }
+
+    @Test
+    void keyKeepsCountryAndYearsApart() {
+        assertNotEquals(LongLruCache.key(1, 2000, 2010), LongLruCache.key(1, 2010, 2000));
+        assertNotEquals(LongLruCache.key(1, 2000, 2010), LongLruCache.key(2, 2000, 2010));
+        assertNotEquals(LongLruCache.key(0, -5, 10), LongLruCache.key(0, 5, 10));
+    }
+}
@@ -0,0 +1,116 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStatisticsTest {
+    private static final double[] PERCENTILES = { 0, 0.1, 0.25, 0.5, 0.75, 0.9, 0.999, 1 };
+
+    @Test
+    void randomWindowsMatchSortingTheSlice() {
+        // only a dozen distinct values (and both zeros) so most windows are full of duplicates
+        Random random = new Random(7);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 60; c++) {
+            int rows = 1 + random.nextInt(90);
+            for (int year = 1900; year < 1900 + rows; year++) {
+                double value = random.nextInt(12) - 3;
+                builder.add(String.format("C%02d", c), year, value == 0 && random.nextBoolean() ? -0.0 : value);
+            }
+        }
+        CountryDataset dataset = builder.build();
+        OrderStatistics order = new OrderStatistics(dataset);
+        int size = dataset.size();
+
+        for (int round = 0; round < 3_000; round++) {
+            int from = random.nextInt(size);
+            int to = from + 1 + random.nextInt(Math.min(size - from, round % 3 == 0 ? 3 : size));
+            assertWindow(dataset, order, from, to);
+        }
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            DataSlice slice = dataset.slice(id, 1920, 1960);
+            if (slice.isEmpty()) continue;
+            double[] sorted = sortedCopy(dataset, slice.from(), slice.to());
+            assertEquals(median(sorted), order.median(slice), "median of " + dataset.countryName(id));
+            assertEquals(percentile(sorted, 0.9), order.percentile(slice, 0.9), "P90 of " + dataset.countryName(id));
+        }
+    }
+
+    @Test
+    void everyOneAndTwoRowWindow() {
+        Random random = new Random(3);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        // 200 rows so the windows cross the 64 bit word boundaries
+        for (int year = 0; year < 200; year++) {
+            builder.add("A", year, random.nextInt(5) * 1.5);
+        }
+        CountryDataset dataset = builder.build();
+        OrderStatistics order = new OrderStatistics(dataset);
+        for (int from = 0; from < dataset.size(); from++) {
+            assertWindow(dataset, order, from, from + 1);
+            if (from + 2 <= dataset.size()) assertWindow(dataset, order, from, from + 2);
+        }
+        assertWindow(dataset, order, 0, dataset.size());
+    }
+
+    @Test
+    void oneDistinctValue() {
+        CountryDataset dataset = new CountryDataset.Builder()
+            .add("A", 2000, 4.0).add("A", 2001, 4.0).add("B", 2000, 4.0)
+            .build();
+        OrderStatistics order = new OrderStatistics(dataset);
+        for (int from = 0; from < 3; from++) {
+            for (int to = from + 1; to <= 3; to++) {
+                assertWindow(dataset, order, from, to);
+            }
+        }
+    }
+
+    @Test
+    void emptyWindowsAndBadRanks() {
+        CountryDataset dataset = new CountryDataset.Builder().add("A", 2000, 1.0).add("A", 2001, 2.0).build();
+        OrderStatistics order = new OrderStatistics(dataset);
+        assertEquals(0, order.median(1, 1));
+        assertEquals(0, order.percentile(2, 2, 0.5));
+        assertThrows(IndexOutOfBoundsException.class, () -> order.kth(0, 2, 2));
+        assertThrows(IndexOutOfBoundsException.class, () -> order.kth(0, 2, -1));
+        // p is clamped to [0, 1]
+        assertEquals(1.0, order.percentile(0, 2, -3));
+        assertEquals(2.0, order.percentile(0, 2, 7));
+    }
+
+    private static void assertWindow(CountryDataset dataset, OrderStatistics order, int from, int to) {
+        double[] sorted = sortedCopy(dataset, from, to);
+        String window = "[" + from + ", " + to + ")";
+        for (int k = 0; k < sorted.length; k++) {
+            assertEquals(sorted[k], order.kth(from, to, k), "k = " + k + " in " + window);
+        }
+        assertEquals(median(sorted), order.median(from, to), "median of " + window);
+        for (double p : PERCENTILES) {
+            assertEquals(percentile(sorted, p), order.percentile(from, to, p), 1e-12, "p = " + p + " in " + window);
+        }
+    }
+
+    private static double[] sortedCopy(CountryDataset dataset, int from, int to) {
+        double[] values = new double[to - from];
+        for (int row = from; row < to; row++) values[row - from] = dataset.emissionAt(row);
+        Arrays.sort(values);
+        return values;
+    }
+
+    private static double median(double[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        double position = p * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        if (lower + 1 >= sorted.length) return sorted[lower];
+        return sorted[lower] + (position - lower) * (sorted[lower + 1] - sorted[lower]);
+    }
+}
@@ -0,0 +1,113 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RangeQueryEngineTest {
+
+    @Test
+    void matchesABruteForceScan() {
+        // countries from 1 row up to several hundred so every level of the sparse table gets used, and values
+        // on a coarse grid so min and max are often tied
+        Random random = new Random(11);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 40; c++) {
+            int rows = c < 5 ? c + 1 : 1 + random.nextInt(c < 10 ? 1_200 : 200);
+            int first = 1700 + random.nextInt(100);
+            for (int year = first; year < first + rows; year++) {
+                builder.add(String.format("C%02d", c), year, random.nextInt(20) * 0.25 - 1);
+            }
+        }
+        CountryDataset dataset = builder.build();
+        RangeQueryEngine engine = new RangeQueryEngine(dataset);
+
+        for (int round = 0; round < 20_000; round++) {
+            int id = random.nextInt(dataset.countryCount());
+            int start = dataset.countryStart(id);
+            int length = dataset.countryEnd(id) - start;
+            int from = start + random.nextInt(length);
+            // lots of short windows as well, they never touch the table
+            int to = from + 1 + random.nextInt(Math.min(dataset.countryEnd(id) - from, round % 2 == 0 ? 40 : length));
+            assertWindow(dataset, engine, from, to);
+        }
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            assertWindow(dataset, engine, dataset.countryStart(id), dataset.countryEnd(id));
+        }
+    }
+
+    @Test
+    void yearWindowsAndEmptyWindows() {
+        CountryDataset dataset = new CountryDataset.Builder()
+            .add("A", 2000, 3.0).add("A", 2001, 1.0).add("A", 2002, 1.0).add("A", 2003, 5.0).add("B", 2000, 9.0)
+            .build();
+        RangeQueryEngine engine = new RangeQueryEngine(dataset);
+
+        RangeStats stats = engine.query(0, 2001, 2010);
+        assertEquals(3, stats.getCount());
+        assertEquals(7.0 / 3, stats.getMean(), 1e-12);
+        assertEquals(1.0, stats.getMin());
+        assertEquals(2001, stats.getMinYear(), "the earlier of two equal minimums");
+        assertEquals(5.0, stats.getMax());
+        assertEquals(2003, stats.getMaxYear());
+        assertEquals(4.0, stats.getTotalChange());
+
+        assertSame(RangeStats.EMPTY, engine.query(0, 1990, 1999));
+        assertSame(RangeStats.EMPTY, engine.query(1, 2001, 2005));
+        assertEquals(0, engine.sum(3, 3));
+        assertEquals(0, engine.mean(3, 3));
+        assertEquals(9.0, engine.query(1, 0, 3000).getMean());
+        assertEquals(0, engine.query(1, 0, 3000).getVariance());
+    }
+
+    @Test
+    void varianceStaysAccurateWithALargeMean() {
+        // the naive sum of squares loses every digit of the variance here, the pivot keeps it
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int year = 0; year < 1_000; year++) {
+            builder.add("A", year, 1e9 + (year % 2 == 0 ? 0.5 : -0.5));
+        }
+        RangeQueryEngine engine = new RangeQueryEngine(builder.build());
+        RangeStats stats = engine.query(0, 1_000);
+        assertEquals(1e9, stats.getMean(), 1e-6);
+        assertEquals(0.25 * 1_000 / 999, stats.getVariance(), 1e-9);
+    }
+
+    private static void assertWindow(CountryDataset dataset, RangeQueryEngine engine, int from, int to) {
+        String window = dataset.countryName(dataset.countryAt(from)) + " [" + from + ", " + to + ")";
+        int minRow = from;
+        int maxRow = from;
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            double x = dataset.emissionAt(i);
+            if (x < dataset.emissionAt(minRow)) minRow = i;
+            if (x > dataset.emissionAt(maxRow)) maxRow = i;
+            sum += x;
+        }
+        double mean = sum / (to - from);
+        double squares = 0;
+        for (int i = from; i < to; i++) {
+            squares += (dataset.emissionAt(i) - mean) * (dataset.emissionAt(i) - mean);
+        }
+        double variance = to - from > 1 ? squares / (to - from - 1) : 0;
+
+        assertEquals(minRow, engine.argMin(from, to), "argMin of " + window);
+        assertEquals(maxRow, engine.argMax(from, to), "argMax of " + window);
+        assertEquals(sum, engine.sum(from, to), 1e-9, "sum of " + window);
+        assertEquals(mean, engine.mean(from, to), 1e-9, "mean of " + window);
+
+        RangeStats stats = engine.query(from, to);
+        assertEquals(to - from, stats.getCount());
+        assertEquals(mean, stats.getMean(), 1e-9, "mean of " + window);
+        assertEquals(variance, stats.getVariance(), 1e-9, "variance of " + window);
+        assertEquals(dataset.emissionAt(minRow), stats.getMin());
+        assertEquals(dataset.yearAt(minRow), stats.getMinYear());
+        assertEquals(dataset.emissionAt(maxRow), stats.getMax());
+        assertEquals(dataset.yearAt(maxRow), stats.getMaxYear());
+        assertEquals(dataset.yearAt(from), stats.getFirstYear());
+        assertEquals(dataset.yearAt(to - 1), stats.getLastYear());
+        assertEquals(dataset.emissionAt(to - 1) - dataset.emissionAt(from), stats.getTotalChange());
+    }
+}
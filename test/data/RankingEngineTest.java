@@ -0,0 +1,153 @@
+package data;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankingEngineTest {
+    private static CountryDataset dataset;
+    private static RankingEngine engine;
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void buildDataset() {
+        // values are rounded to a few steps so lots of countries tie, and some countries miss whole decades
+        Random random = new Random(21);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 1_000; c++) {
+            String name = c % 97 == 0 ? "Region " + c + " (excl. EU)" : "Country " + c;
+            int first = 1900 + random.nextInt(80);
+            for (int year = first; year < 2020; year++) {
+                builder.add(name, year, Math.round(random.nextDouble() * 8) / 2.0);
+            }
+        }
+        builder.add("World", 1950, 4.0);
+        dataset = builder.build();
+        engine = new RankingEngine(new RangeQueryEngine(dataset));
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void topAndBottomMatchAFullSort() {
+        int n = dataset.countryCount();
+        for (RankingEngine.Metric metric : RankingEngine.Metric.values()) {
+            for (int[] window : new int[][] { { 1900, 2020 }, { 1950, 1960 }, { 1995, 1995 }, { 2030, 2040 } }) {
+                for (IntPredicate filter : new IntPredicate[] { null, engine.excludingAggregates() }) {
+                    for (int k : new int[] { 0, 1, 10, n, n + 5 }) {
+                        String what = metric + " " + window[0] + "-" + window[1] + " k=" + k + (filter == null ? "" : " countries only");
+                        assertRanking(expected(metric, window[0], window[1], filter, true, k),
+                            engine.top(metric, window[0], window[1], k, filter), what + " top");
+                        assertRanking(expected(metric, window[0], window[1], filter, false, k),
+                            engine.bottom(metric, window[0], window[1], k, filter), what + " bottom");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void tiesGoToTheLowerId() {
+        // every country is worth 1 in the window, so both directions are just the ids in order
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 600; c++) {
+            builder.add(String.format("C%04d", c), 2000, 1.0);
+        }
+        RankingEngine flat = new RankingEngine(new RangeQueryEngine(builder.build()));
+        for (boolean highest : new boolean[] { true, false }) {
+            Ranking ranking = flat.rank(RankingEngine.Metric.MEAN, 2000, 2000, 5, null, highest, pool, 1);
+            for (int i = 0; i < 5; i++) {
+                assertEquals(i, ranking.countryId(i));
+            }
+        }
+    }
+
+    @Test
+    void splittingGivesTheSameResultAsOneScan() {
+        for (RankingEngine.Metric metric : RankingEngine.Metric.values()) {
+            for (int k : new int[] { 1, 7, 100, dataset.countryCount() }) {
+                for (boolean highest : new boolean[] { true, false }) {
+                    Ranking serial = engine.rank(metric, 1940, 2000, k, null, highest, pool, Integer.MAX_VALUE);
+                    for (int minSplit : new int[] { 1, 3, 64 }) {
+                        Ranking split = engine.rank(metric, 1940, 2000, k, null, highest, pool, minSplit);
+                        assertEquals(serial.size(), split.size());
+                        for (int i = 0; i < serial.size(); i++) {
+                            assertEquals(serial.countryId(i), split.countryId(i), metric + " k=" + k + " split " + minSplit);
+                            assertEquals(serial.value(i), split.value(i));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void aggregatesAreRecognised() {
+        assertTrue(RankingEngine.isAggregate("World"));
+        assertTrue(RankingEngine.isAggregate("High-income countries"));
+        assertTrue(RankingEngine.isAggregate("European Union (27)"));
+        assertTrue(RankingEngine.isAggregate("Asia (excl. China and India)"));
+        assertFalse(RankingEngine.isAggregate("France"));
+        assertFalse(RankingEngine.isAggregate("South Africa"));
+    }
+
+    /**
+     * Every country with data, sorted by value (best first) and then by id, cut to k
+     */
+    private static List<double[]> expected(RankingEngine.Metric metric, int minYear, int maxYear, IntPredicate filter,
+                                           boolean highest, int k) {
+        List<double[]> all = new ArrayList<>();
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            if (filter != null && !filter.test(id)) continue;
+            // the engine's own value, so rounding differences in the mean cant reorder ties; checked against a loop here
+            double value = engine.value(metric, id, minYear, maxYear);
+            double check = bruteForce(metric, id, minYear, maxYear);
+            assertEquals(check, value, 1e-9, metric + " of " + dataset.countryName(id));
+            if (!Double.isNaN(value)) all.add(new double[] { id, value });
+        }
+        Comparator<double[]> byValue = Comparator.comparingDouble(entry -> entry[1]);
+        all.sort((highest ? byValue.reversed() : byValue).thenComparingDouble(entry -> entry[0]));
+        return all.subList(0, Math.min(k, all.size()));
+    }
+
+    private static double bruteForce(RankingEngine.Metric metric, int id, int minYear, int maxYear) {
+        List<Double> values = new ArrayList<>();
+        for (int row = dataset.countryStart(id); row < dataset.countryEnd(id); row++) {
+            if (dataset.yearAt(row) >= minYear && dataset.yearAt(row) <= maxYear) values.add(dataset.emissionAt(row));
+        }
+        if (values.isEmpty()) return Double.NaN;
+        double sum = 0;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) {
+            sum += value;
+            max = Math.max(max, value);
+        }
+        return switch (metric) {
+            case MEAN -> sum / values.size();
+            case MAX -> max;
+            case TOTAL -> sum;
+            case CHANGE -> values.get(values.size() - 1) - values.get(0);
+        };
+    }
+
+    private static void assertRanking(List<double[]> expected, Ranking actual, String message) {
+        assertEquals(expected.size(), actual.size(), message);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals((int) expected.get(i)[0], actual.countryId(i), message + ", place " + i);
+            assertEquals(expected.get(i)[1], actual.value(i), message + ", place " + i);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YearIndexTest {
+
+    @Test
+    void matchesABruteForceScan() {
+        // a handful of values so there are lots of ties, and gaps in the years
+        Random random = new Random(17);
+        CountryDataset.Builder builder = new CountryDataset.Builder();
+        for (int c = 0; c < 200; c++) {
+            for (int year = 1950; year < 2000; year++) {
+                if (random.nextInt(4) == 0) continue;
+                builder.add(String.format("C%03d", c), year, random.nextInt(6) * 0.5);
+            }
+        }
+        CountryDataset dataset = builder.build();
+        YearIndex index = new YearIndex(dataset);
+
+        for (int year = 1945; year < 2005; year++) {
+            List<Integer> rows = rowsIn(dataset, year);
+            YearSlice slice = index.year(year);
+            assertEquals(rows.size(), slice.size(), "year " + year);
+            for (int i = 1; i < slice.size(); i++) {
+                assertTrue(slice.emission(i - 1) <= slice.emission(i), "year " + year + " is sorted");
+            }
+
+            for (int row : rows) {
+                int id = dataset.countryAt(row);
+                double value = dataset.emissionAt(row);
+                // 1 + everyone above, plus everyone equal with a lower id
+                int expected = 1;
+                for (int other : rows) {
+                    double otherValue = dataset.emissionAt(other);
+                    if (otherValue > value || (otherValue == value && dataset.countryAt(other) < id)) expected++;
+                }
+                assertEquals(expected, index.rank(id, year), dataset.countryName(id) + " in " + year);
+            }
+        }
+        assertEquals(50, index.yearCount());
+    }
+
+    @Test
+    void tiesRankTheLowerIdFirst() {
+        CountryDataset dataset = new CountryDataset.Builder()
+            .add("Alpha", 2000, 2.0).add("Bravo", 2000, 5.0).add("Charlie", 2000, 2.0).add("Delta", 2000, 5.0)
+            .build();
+        YearIndex index = new YearIndex(dataset);
+        assertEquals(1, index.rank("Bravo", 2000));
+        assertEquals(2, index.rank("Delta", 2000));
+        assertEquals(3, index.rank("Alpha", 2000));
+        assertEquals(4, index.rank("Charlie", 2000));
+        assertEquals(0, index.rank("Alpha", 2001));
+        assertEquals(0, index.rank("Nowhere", 2000));
+
+        // walking the slice from the top gives the same order as the ranks
+        YearSlice slice = index.year(2000);
+        assertEquals(List.of("Bravo", "Delta", "Alpha", "Charlie"),
+            List.of(slice.countryName(3), slice.countryName(2), slice.countryName(1), slice.countryName(0)));
+    }
+
+    @Test
+    void aboveLeavesOutValuesEqualToTheThreshold() {
+        CountryDataset dataset = new CountryDataset.Builder()
+            .add("A", 2000, 1.0).add("B", 2000, 2.0).add("C", 2000, 2.0).add("D", 2000, 3.0).add("E", 2001, 9.0)
+            .build();
+        YearIndex index = new YearIndex(dataset);
+        assertEquals(4, index.above(2000, 0.5).size());
+        assertEquals(3, index.above(2000, 1.0).size());
+        assertEquals(3, index.above(2000, Math.nextDown(2.0)).size());
+        assertEquals(1, index.above(2000, 2.0).size());
+        assertEquals("D", index.above(2000, 2.0).countryName(0));
+        assertEquals(0, index.above(2000, 3.0).size());
+        assertEquals(0, index.above(2000, 100).size());
+        assertEquals(4, index.above(2000, Double.NEGATIVE_INFINITY).size());
+        assertEquals(0, index.above(1999, 0).size());
+    }
+
+    @Test
+    void outlierYearsDontGrowTheTable() {
+        CountryDataset dataset = new CountryDataset.Builder()
+            .add("A", 0, 1.0).add("A", 2000, 2.0).add("B", 2000, 4.0).add("B", 99_999, 3.0).add("C", -5, 1.5)
+            .build();
+        YearIndex index = new YearIndex(dataset);
+        assertEquals(4, index.yearCount());
+        assertEquals(1, index.year(0).size());
+        assertEquals(2, index.year(2000).size());
+        assertEquals(1, index.year(99_999).size());
+        assertEquals(1, index.year(-5).size());
+        assertTrue(index.year(50_000).isEmpty());
+        assertEquals(1, index.rank("B", 2000));
+        assertEquals(1, index.rank("B", 99_999));
+    }
+
+    @Test
+    void emptyDatasetHasNoYears() {
+        YearIndex index = new YearIndex(CountryDataset.empty());
+        assertEquals(0, index.yearCount());
+        assertTrue(index.year(2000).isEmpty());
+        assertTrue(index.above(2000, 0).isEmpty());
+    }
+
+    private static List<Integer> rowsIn(CountryDataset dataset, int year) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < dataset.size(); row++) {
+            if (dataset.yearAt(row) == year) rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,117 @@
+package server;
+
+import data.DataLoader;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClimateServerTest {
+    @TempDir
+    static Path dir;
+
+    private static ClimateServer server;
+    private static HttpClient client;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        Path csv = Files.write(dir.resolve("server.csv"), String.join("\n",
+            "Entity,Year,Value", "Brazil,2000,2.0", "Brazil,2001,2.2", "Chad,2000,0.1", "Chad,2001,0.2", "")
+            .getBytes(StandardCharsets.UTF_8));
+        DataLoader loader = new DataLoader();
+        loader.loadCSV(csv.toString(), DataLoader.ParseMode.BUFFERED);
+        server = new ClimateServer(loader);
+        server.start(0);
+        client = HttpClient.newHttpClient();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    void matchingETagGetsA304WithoutABody() throws Exception {
+        HttpResponse<String> first = get("/api/series?country=Brazil&from=2000&to=2001");
+        assertEquals(200, first.statusCode());
+        assertTrue(first.body().contains("\"emission\":2.2"), first.body());
+        String etag = first.headers().firstValue("ETag").orElseThrow();
+
+        HttpResponse<String> again = send(request("/api/series?country=Brazil&from=2000&to=2001").header("If-None-Match", etag));
+        assertEquals(304, again.statusCode());
+        assertEquals("", again.body());
+        assertEquals(etag, again.headers().firstValue("ETag").orElseThrow());
+
+        HttpResponse<String> stale = send(request("/api/series?country=Brazil&from=2000&to=2001").header("If-None-Match", "\"0-0\""));
+        assertEquals(200, stale.statusCode());
+        assertEquals(first.body(), stale.body());
+    }
+
+    @Test
+    void reorderedParametersHitTheSameEntry() throws Exception {
+        HttpResponse<String> first = get("/api/stats?country=Chad&from=2000&to=2001");
+        long hits = health("cacheHits");
+        long entries = health("cacheEntries");
+
+        HttpResponse<String> reordered = get("/api/stats?to=2001&from=2000&country=Chad");
+        assertEquals(first.body(), reordered.body());
+        assertEquals(hits + 1, health("cacheHits"));
+        assertEquals(entries, health("cacheEntries"));
+    }
+
+    @Test
+    void errorsAreNotCached() throws Exception {
+        long entries = health("cacheEntries");
+        for (int i = 0; i < 2; i++) {
+            HttpResponse<String> unknown = get("/api/series?country=Atlantis&from=2000&to=2001");
+            assertEquals(404, unknown.statusCode());
+            assertTrue(unknown.body().contains("unknown country"), unknown.body());
+            assertEquals(404, get("/api/nothing").statusCode());
+            assertEquals(400, get("/api/series?from=2000").statusCode());
+        }
+        assertEquals(entries, health("cacheEntries"));
+    }
+
+    @Test
+    void headHasNoBodyAndOtherMethodsAreRefused() throws Exception {
+        HttpResponse<String> head = send(request("/api/countries").method("HEAD", HttpRequest.BodyPublishers.noBody()));
+        assertEquals(200, head.statusCode());
+        assertEquals("", head.body());
+        assertTrue(head.headers().firstValue("ETag").isPresent());
+
+        HttpResponse<String> post = send(request("/api/countries").POST(HttpRequest.BodyPublishers.ofString("{}")));
+        assertEquals(405, post.statusCode());
+    }
+
+    private static long health(String field) throws Exception {
+        String body = get("/api/health").body();
+        Matcher matcher = Pattern.compile("\"" + field + "\":(\\d+)").matcher(body);
+        assertTrue(matcher.find(), body);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return send(request(path));
+    }
+
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + path));
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,45 @@
+package ui;
+
+import data.CountryDataset;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchExporterTest {
+    private final CountryDataset dataset = new CountryDataset.Builder()
+        .add("Côte d'Ivoire", 1995, 0.3).add("Côte d'Ivoire", 2012, 0.4)
+        .add("Cote-d'Ivoire", 2000, 0.3)
+        .add("Old Colony", 1950, 1.0)
+        .build();
+
+    @Test
+    void countriesWithoutRowsInTheRangeAreSkipped() {
+        assertEquals(List.of("cote_d_ivoire_1990-2020.png", "cote_d_ivoire_1990-2020_2.png"),
+            fileNames(BatchExporter.everyCountry(dataset, 1990, 2020)));
+        assertTrue(BatchExporter.everyCountry(dataset, 2030, 2040).isEmpty());
+    }
+
+    @Test
+    void emptyWindowsAreSkipped() {
+        assertEquals(List.of("cote_d_ivoire_1990-1999.png", "cote_d_ivoire_2010-2019.png"),
+            fileNames(BatchExporter.windows(dataset, List.of("Côte d'Ivoire", "Nowhere"), 1990, 2019, 10)));
+    }
+
+    @Test
+    void fileNamesAreLowerCaseAscii() {
+        assertEquals("cote_d_ivoire", BatchExporter.sanitise("  Côte d'Ivoire "));
+        assertEquals("sao_tome_and_principe", BatchExporter.sanitise("São Tomé and Príncipe"));
+        assertEquals("", BatchExporter.sanitise("***"));
+        assertEquals("country_vs_united_kingdom_2000-2001",
+            BatchExporter.fileName(List.of("***", "United Kingdom"), 2000, 2001));
+    }
+
+    private static List<String> fileNames(List<BatchExporter.Job> jobs) {
+        List<String> names = new ArrayList<>();
+        for (BatchExporter.Job job : jobs) names.add(job.fileName);
+        return names;
+    }
+}
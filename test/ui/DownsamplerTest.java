@@ -0,0 +1,93 @@
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownsamplerTest {
+
+    @Test
+    void keepsEveryBucketsLowestAndHighestPoint() {
+        Random random = new Random(19);
+        for (int round = 0; round < 2_000; round++) {
+            int size = 1 + random.nextInt(round % 5 == 0 ? 5_000 : 300);
+            // a coarse grid of values so buckets often hold ties
+            SeriesData points = series(size, random, round % 3 == 0 ? 4 : 1_000);
+            int maxPoints = random.nextInt(size + 10);
+            SeriesData sampled = Downsampler.minMax(points, maxPoints);
+            String what = size + " points into " + maxPoints;
+
+            if (maxPoints < 4 || size <= maxPoints) {
+                assertSame(points, sampled, what);
+                continue;
+            }
+            assertTrue(sampled.size() <= maxPoints, what);
+
+            // the rows a plain scan keeps: both ends plus the earliest min and max of each bucket
+            TreeSet<Integer> expected = new TreeSet<>();
+            expected.add(0);
+            expected.add(size - 1);
+            int buckets = (maxPoints - 2) / 2;
+            for (int b = 0; b < buckets; b++) {
+                int from = 1 + (int) ((long) (size - 2) * b / buckets);
+                int to = 1 + (int) ((long) (size - 2) * (b + 1) / buckets);
+                int min = -1;
+                int max = -1;
+                for (int i = from; i < to; i++) {
+                    if (min < 0 || points.value(i) < points.value(min)) min = i;
+                    if (max < 0 || points.value(i) > points.value(max)) max = i;
+                }
+                if (min >= 0) {
+                    expected.add(min);
+                    expected.add(max);
+                }
+            }
+
+            assertEquals(expected.size(), sampled.size(), what);
+            int j = 0;
+            for (int row : expected) {
+                assertEquals(points.year(row), sampled.year(j), what + ", point " + j);
+                assertEquals(points.value(row), sampled.value(j), what + ", point " + j);
+                j++;
+            }
+            assertEquals(min(points), min(sampled), what);
+            assertEquals(max(points), max(sampled), what);
+        }
+    }
+
+    @Test
+    void shortLinesAndTinyLimitsAreLeftAlone() {
+        SeriesData points = series(10, new Random(1), 100);
+        assertSame(points, Downsampler.minMax(points, 10));
+        assertSame(points, Downsampler.minMax(points, 3));
+        assertSame(SeriesData.EMPTY, Downsampler.minMax(SeriesData.EMPTY, 100));
+        assertEquals(4, Downsampler.minMax(points, 4).size());
+    }
+
+    private static SeriesData series(int size, Random random, int steps) {
+        int[] years = new int[size];
+        double[] values = new double[size];
+        int year = 1750;
+        for (int i = 0; i < size; i++) {
+            year += 1 + random.nextInt(2);
+            years[i] = year;
+            values[i] = random.nextInt(steps) * 0.1;
+        }
+        return new SeriesData(years, values);
+    }
+
+    private static double min(SeriesData points) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < points.size(); i++) min = Math.min(min, points.value(i));
+        return min;
+    }
+
+    private static double max(SeriesData points) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < points.size(); i++) max = Math.max(max, points.value(i));
+        return max;
+    }
+}
@@ -0,0 +1,92 @@
+package ui;
+
+import javafx.scene.Group;
+import javafx.scene.chart.XYChart;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeriesUpdaterTest {
+
+    @Test
+    void pooledPointsMoveToAnotherSeriesWithoutTheirSymbol() {
+        SeriesUpdater updater = new SeriesUpdater();
+        XYChart.Series<Number, Number> first = new XYChart.Series<>();
+        updater.update(first, points(2000, 2010), false);
+        // what LineChart leaves behind on a symbol it has styled for the first series
+        Map<XYChart.Data<Number, Number>, Boolean> used = new IdentityHashMap<>();
+        for (XYChart.Data<Number, Number> point : first.getData()) {
+            Group symbol = new Group();
+            symbol.getStyleClass().addAll("chart-line-symbol", "series0", "default-color7");
+            point.setNode(symbol);
+            used.put(point, true);
+        }
+        updater.release(first, false);
+
+        XYChart.Series<Number, Number> second = new XYChart.Series<>();
+        updater.update(second, points(1990, 2000), false);
+        int reused = 0;
+        for (XYChart.Data<Number, Number> point : second.getData()) {
+            if (used.containsKey(point)) reused++;
+            assertNull(point.getNode(), "year " + point.getXValue());
+        }
+        assertEquals(10, reused, "the points are still pooled");
+        assertEquals(List.of(1990, 1991, 1992), years(second).subList(0, 3));
+    }
+
+    @Test
+    void pointsDroppedAtTheEdgesLoseTheirSymbolToo() {
+        SeriesUpdater updater = new SeriesUpdater();
+        XYChart.Series<Number, Number> series = new XYChart.Series<>();
+        updater.update(series, points(2000, 2010), false);
+        for (XYChart.Data<Number, Number> point : series.getData()) point.setNode(new Group());
+
+        // slide the window forward, the points that fell off the start come back at the end
+        updater.update(series, points(2005, 2015), false);
+        assertEquals(10, series.getData().size());
+        for (XYChart.Data<Number, Number> point : series.getData()) {
+            int year = point.getXValue().intValue();
+            assertEquals(year < 2010, point.getNode() != null, "year " + year);
+        }
+        assertEquals(years(series), List.of(2005, 2006, 2007, 2008, 2009, 2010, 2011, 2012, 2013, 2014));
+    }
+
+    @Test
+    void animatedRemovalsAreNotPooled() {
+        SeriesUpdater updater = new SeriesUpdater();
+        XYChart.Series<Number, Number> first = new XYChart.Series<>();
+        updater.update(first, points(2000, 2005), false);
+        List<XYChart.Data<Number, Number>> old = new ArrayList<>(first.getData());
+        updater.release(first, true);
+
+        XYChart.Series<Number, Number> second = new XYChart.Series<>();
+        updater.update(second, points(2000, 2005), false);
+        for (XYChart.Data<Number, Number> point : second.getData()) {
+            for (XYChart.Data<Number, Number> fading : old) assertNotSame(fading, point);
+        }
+    }
+
+    /**
+     * One point a year in [from, to), the value is the year
+     */
+    private static SeriesData points(int from, int to) {
+        int[] years = new int[to - from];
+        double[] values = new double[to - from];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = from + i;
+            values[i] = from + i;
+        }
+        return new SeriesData(years, values);
+    }
+
+    private static List<Integer> years(XYChart.Series<Number, Number> series) {
+        List<Integer> years = new ArrayList<>();
+        for (XYChart.Data<Number, Number> point : series.getData()) years.add(point.getXValue().intValue());
+        return years;
+    }
+}
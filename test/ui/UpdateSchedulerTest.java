@@ -0,0 +1,115 @@
+package ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpdateSchedulerTest {
+
+    /**
+     * Stands in for the FX thread: handed over work waits here until the test runs it
+     */
+    private final BlockingQueue<Runnable> fxQueue = new LinkedBlockingQueue<>();
+    private final List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+    private final UpdateScheduler<Integer> scheduler = new UpdateScheduler<>(errors::add, fxQueue::add);
+    private final List<Integer> applied = new ArrayList<>();
+
+    @Test
+    void aBurstOfRequestsRunsTheFirstAndTheLast() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger computed = new AtomicInteger();
+        AtomicBoolean firstSawStale = new AtomicBoolean();
+
+        scheduler.request(stale -> {
+            computed.incrementAndGet();
+            started.countDown();
+            await(release);
+            firstSawStale.set(stale.getAsBoolean());
+            return -1;
+        }, applied::add);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            scheduler.request(stale -> {
+                computed.incrementAndGet();
+                return value;
+            }, applied::add);
+        }
+        release.countDown();
+
+        runFx(1);
+        assertEquals(List.of(99), applied);
+        assertEquals(2, computed.get(), "the 98 requests in between never run");
+        assertTrue(firstSawStale.get());
+        assertNull(fxQueue.poll(100, TimeUnit.MILLISECONDS), "the overtaken result is never handed over");
+    }
+
+    @Test
+    void aResultOvertakenWhileWaitingForTheFxThreadIsDropped() throws Exception {
+        scheduler.request(stale -> 1, applied::add);
+        Runnable first = fxQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+
+        scheduler.request(stale -> 2, applied::add);
+        runFx(1);
+        first.run();
+        assertEquals(List.of(2), applied);
+    }
+
+    @Test
+    void nullResultsAreNotApplied() throws Exception {
+        scheduler.request(stale -> null, applied::add);
+        scheduler.request(stale -> 3, applied::add);
+        runFx(1);
+        assertEquals(List.of(3), applied);
+    }
+
+    @Test
+    void onlyCurrentErrorsAreReported() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.request(stale -> {
+            await(release);
+            throw new IllegalStateException("overtaken");
+        }, applied::add);
+        scheduler.request(stale -> {
+            throw new IllegalStateException("current");
+        }, applied::add);
+        release.countDown();
+
+        runFx(1);
+        assertEquals(1, errors.size());
+        assertEquals("current", errors.get(0).getMessage());
+        assertTrue(applied.isEmpty());
+    }
+
+    /**
+     * Runs the next count tasks handed to the "FX thread", waiting for each
+     */
+    private void runFx(int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            Runnable task = fxQueue.poll(5, TimeUnit.SECONDS);
+            assertNotNull(task, "nothing was handed to the FX thread");
+            task.run();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package tools;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Writes made up files in the same Country,Year,Emission layout as the real data, for testing how the loader
+ * and analyser cope with far more rows than the bundled 26k.
+ *
+ * The output only depends on the settings and the seed, so two runs with the same arguments give byte for byte
+ * the same file. Every value is worked out from (seed, country, year) on its own instead of from a running
+ * random number generator, which is what lets the shuffled order work for 100M rows: the rows are visited in
+ * the order of a pseudo random permutation of the country x year grid, so nothing has to be held in memory.
+ *
+ * Usage (from the project folder):
+ *   javac -d out data/*.java tools/*.java
+ *   java -cp out tools.DatasetGenerator out.csv --rows 10M [--countries N] [--years N] [--from YEAR]
+ *                                               [--sparsity 0.2] [--order sorted|shuffled] [--seed N]
+ */
+public final class DatasetGenerator {
+    public enum Order { SORTED, SHUFFLED }
+
+    private static final String HEADER = "Entity,Year,Annual CO₂ emissions (per capita)\n";
+    private static final String[] SYLLABLES = {
+        "ka", "no", "ri", "ta", "be", "lu", "so", "mi", "ga", "de", "pa", "vo", "ze", "ha", "fi", "ru"
+    };
+
+    private long rows;            // 0 means the whole grid
+    private int countries;        // 0 means work it out from rows
+    private int years;            // 0 means work it out from rows
+    private int firstYear = 1750;
+    private double sparsity;      // share of the country-year grid that is left out
+    private Order order = Order.SORTED;
+    private long seed = 42;
+
+    public DatasetGenerator rows(long rows) { this.rows = rows; return this; }
+    public DatasetGenerator countries(int countries) { this.countries = countries; return this; }
+    public DatasetGenerator years(int years) { this.years = years; return this; }
+    public DatasetGenerator firstYear(int firstYear) { this.firstYear = firstYear; return this; }
+    public DatasetGenerator sparsity(double sparsity) { this.sparsity = sparsity; return this; }
+    public DatasetGenerator order(Order order) { this.order = order; return this; }
+    public DatasetGenerator seed(long seed) { this.seed = seed; return this; }
+
+    /**
+     * Writes the file and returns the number of rows written
+     */
+    public long write(Path file) throws IOException {
+        if (sparsity < 0 || sparsity >= 1) throw new IllegalArgumentException("sparsity must be between 0 and 1");
+        int gridYears = years;
+        int gridCountries = countries;
+        double keep = 1 - sparsity;
+        // a little headroom so the random gaps dont leave us short of the requested row count
+        double needed = rows * 1.02 / keep + 64;
+        if (gridYears <= 0) {
+            gridYears = gridCountries > 0 && rows > 0 ? (int) Math.ceil(needed / gridCountries) : 275;
+        }
+        if (gridCountries <= 0) {
+            gridCountries = rows > 0 ? (int) Math.ceil(needed / gridYears) : 200;
+        }
+        long cells = (long) gridCountries * gridYears;
+        long target = rows > 0 ? rows : Long.MAX_VALUE;
+
+        long keepThreshold = (long) (keep * (1L << 53));
+        String[] names = new String[gridCountries];
+        for (int c = 0; c < gridCountries; c++) {
+            names[c] = countryName(c);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        long written = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 16)) {
+            out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+            StringBuilder line = new StringBuilder(64);
+            Permutation permutation = order == Order.SHUFFLED ? new Permutation(cells, seed) : null;
+            for (long i = 0; i < cells && written < target; i++) {
+                long cell = permutation == null ? i : permutation.apply(i);
+                int country = (int) (cell / gridYears);
+                int year = (int) (cell % gridYears);
+                if (sparsity > 0 && (mix(seed, country, year, 1) >>> 11) >= keepThreshold) continue;
+
+                line.setLength(0);
+                line.append(names[country]).append(',').append(firstYear + year).append(',');
+                appendValue(line, value(country, year));
+                line.append('\n');
+                for (int k = 0; k < line.length(); k++) {
+                    out.write(line.charAt(k));   // names and numbers are plain ASCII
+                }
+                written++;
+            }
+        }
+        if (written < rows) {
+            System.err.printf("Only %d of the %d rows fit in a %d x %d grid%n", written, rows, gridCountries, gridYears);
+        }
+        return written;
+    }
+
+    /**
+     * Every country gets its own starting level and trend, plus a little noise each year
+     */
+    private double value(int country, int year) {
+        double level = unit(mix(seed, country, -1, 2)) * 15;
+        double trend = (unit(mix(seed, country, -1, 3)) - 0.3) * 0.05;
+        double noise = (unit(mix(seed, country, year, 4)) - 0.5) * 0.4;
+        return Math.max(0, level + trend * year + noise);
+    }
+
+    // four decimals written by hand, String.format is far too slow for 100M rows
+    private static void appendValue(StringBuilder line, double value) {
+        long scaled = Math.round(value * 10000);
+        line.append(scaled / 10000).append('.');
+        long fraction = scaled % 10000;
+        if (fraction < 1000) line.append('0');
+        if (fraction < 100) line.append('0');
+        if (fraction < 10) line.append('0');
+        line.append(fraction);
+    }
+
+    /**
+     * Spells the id in base 16 with a syllable per digit, so names are unique and look a bit like words
+     */
+    static String countryName(int id) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.insert(0, SYLLABLES[id & 15]);
+            id >>>= 4;
+        } while (id != 0);
+        if (name.length() < 4) name.append("land");
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    private static double unit(long hash) {
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+
+    private static long mix(long seed, int country, int year, int stream) {
+        long z = seed * 0x9E3779B97F4A7C15L + ((long) country << 32 | (year & 0xFFFFFFFFL)) * 0xBF58476D1CE4E5B9L + stream;
+        return splitMix(z);
+    }
+
+    private static long splitMix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A shuffle of 0..size-1 that needs no memory: a small Feistel network is a bijection on the next power of
+     * four above size, and values that land outside the range are just fed through again (cycle walking).
+     */
+    private static final class Permutation {
+        private final long size;
+        private final int halfBits;
+        private final long halfMask;
+        private final long[] keys = new long[4];
+
+        Permutation(long size, long seed) {
+            this.size = size;
+            int bits = Math.max(2, 64 - Long.numberOfLeadingZeros(Math.max(1, size - 1)));
+            halfBits = (bits + 1) / 2;
+            halfMask = (1L << halfBits) - 1;
+            for (int r = 0; r < keys.length; r++) {
+                keys[r] = splitMix(seed + r * 0x9E3779B97F4A7C15L);
+            }
+        }
+
+        long apply(long index) {
+            long x = index;
+            do {
+                x = round(x);
+            } while (x >= size);
+            return x;
+        }
+
+        private long round(long x) {
+            long left = x >>> halfBits;
+            long right = x & halfMask;
+            for (long key : keys) {
+                long next = left ^ (splitMix(right ^ key) & halfMask);
+                left = right;
+                right = next;
+            }
+            return (left << halfBits) | right;
+        }
+    }
+
+    /**
+     * Reads sizes like 1000000, 500k, 10M or 1G
+     */
+    static long parseCount(String text) {
+        String t = text.trim().toUpperCase(Locale.ROOT);
+        long multiplier = 1;
+        if (t.endsWith("K")) multiplier = 1_000;
+        else if (t.endsWith("M")) multiplier = 1_000_000;
+        else if (t.endsWith("G")) multiplier = 1_000_000_000;
+        if (multiplier > 1) t = t.substring(0, t.length() - 1);
+        return Math.round(Double.parseDouble(t) * multiplier);
+    }
+
+    /**
+     * Reads the generator settings from the command line, leaving the file name (and anything it doesnt know)
+     * for the caller. Returns the index of the first argument it didnt use.
+     */
+    static int configure(DatasetGenerator generator, String[] args, int from) {
+        int i = from;
+        while (i + 1 < args.length) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--rows" -> generator.rows(parseCount(value));
+                case "--countries" -> generator.countries((int) parseCount(value));
+                case "--years" -> generator.years(Integer.parseInt(value));
+                case "--from" -> generator.firstYear(Integer.parseInt(value));
+                case "--sparsity" -> generator.sparsity(Double.parseDouble(value));
+                case "--order" -> generator.order(Order.valueOf(value.toUpperCase(Locale.ROOT)));
+                case "--seed" -> generator.seed(Long.parseLong(value));
+                default -> { return i; }
+            }
+            i += 2;
+        }
+        return i;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args[0].startsWith("--")) {
+            System.err.println("Usage: java tools.DatasetGenerator <out.csv> --rows 10M [--countries N] [--years N] [--from YEAR]");
+            System.err.println("                                   [--sparsity 0.2] [--order sorted|shuffled] [--seed N]");
+            System.exit(2);
+        }
+        DatasetGenerator generator = new DatasetGenerator();
+        int next;
+        try {
+            next = configure(generator, args, 1);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Bad option: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (next < args.length) {
+            System.err.println("Unknown option: " + args[next]);
+            System.exit(2);
+        }
+
+        Path file = Paths.get(args[0]);
+        long start = System.nanoTime();
+        long written = generator.write(file);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %,d rows (%.1f MB) to %s in %.1f s%n",
+            written, Files.size(file) / (1024.0 * 1024.0), file, seconds);
+    }
+}
@@ -0,0 +1,70 @@
+package tools;
+
+import data.CountryDataset;
+import data.DataLoader;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Measures how the parallel CSV loader scales with the number of threads (1, 2, 4 and every core).
+ * Every run is also checked against the original BUFFERED reader so a speed up can never come from wrong results.
+ *
+ * Usage (from the project folder):
+ *   javac -d out data/*.java tools/*.java
+ *   java -cp out tools.LoadScalingBenchmark path/to/file.csv [runs]
+ */
+public class LoadScalingBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java tools.LoadScalingBenchmark <file.csv> [runs]");
+            System.exit(1);
+        }
+        String path = args[0];
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        double megabytes = new File(path).length() / (1024.0 * 1024.0);
+
+        DataLoader reference = new DataLoader();
+        reference.loadCSV(path, DataLoader.ParseMode.BUFFERED);
+        CountryDataset expected = reference.getDataset();
+        System.out.printf("%s: %.1f MB, %d rows, %d countries%n", path, megabytes, expected.size(), expected.countryCount());
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        Set<Integer> threadCounts = new LinkedHashSet<>(Arrays.asList(1, 2, 4, cores));
+
+        double baseline = 0;
+        System.out.printf("%-8s %12s %12s %10s%n", "threads", "median ms", "MB/s", "speedup");
+        for (int threads : threadCounts) {
+            DataLoader loader = new DataLoader();
+            loader.loadCSVParallel(path, threads); // warm up
+            if (!sameData(expected, loader.getDataset())) {
+                throw new IllegalStateException("Parallel load with " + threads + " threads differs from the serial load");
+            }
+
+            double[] times = new double[runs];
+            for (int r = 0; r < runs; r++) {
+                long start = System.nanoTime();
+                loader.loadCSVParallel(path, threads);
+                times[r] = (System.nanoTime() - start) / 1e6;
+            }
+            Arrays.sort(times);
+            double median = times[runs / 2];
+            if (threads == 1) baseline = median;
+            System.out.printf("%-8d %12.1f %12.1f %9.2fx%n", threads, median, megabytes / (median / 1000), baseline / median);
+        }
+    }
+
+    private static boolean sameData(CountryDataset a, CountryDataset b) {
+        if (a.size() != b.size() || !a.countryNames().equals(b.countryNames())) return false;
+        for (int i = 0; i < a.size(); i++) {
+            if (a.countryAt(i) != b.countryAt(i) || a.yearAt(i) != b.yearAt(i)
+                    || Double.doubleToLongBits(a.emissionAt(i)) != Double.doubleToLongBits(b.emissionAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,200 @@
+package tools;
+
+import data.CountryDataset;
+import data.DataAnalyser;
+import data.DataLoader;
+import data.DataSlice;
+import data.WindowSummary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Finds out where the loader and analyser stop keeping up. For every size it generates a file with
+ * DatasetGenerator (once, later runs reuse it) and then measures in a fresh JVM, so one size's garbage and JIT
+ * state cant leak into the next:
+ *
+ *  - load time and rows per second
+ *  - peak heap during the load (from the memory pool peaks, so short lived garbage counts too)
+ *  - how long the first stats query takes, which includes building the median index
+ *  - p50 / p99 latency of the query the UI runs when a slider moves: a year window for four countries,
+ *    with the full stats card (mean, std dev, median, quartiles) for each
+ *
+ * A size that runs out of memory is reported as such instead of ending the whole run.
+ *
+ * Usage (from the project folder):
+ *   javac -d out data/*.java tools/*.java
+ *   java -cp out tools.ScaleTest [--sizes 1M,10M,100M] [--dir scale-data] [--heap 8g] [--mode mapped|parallel]
+ *                               [generator options, see DatasetGenerator]
+ */
+public final class ScaleTest {
+    private static final int QUERIES = 2000;
+    private static final int COUNTRIES_PER_QUERY = 4;
+
+    // the query results go here so the JIT cant decide they are unused
+    private static volatile double sink;
+
+    private ScaleTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 2 && args[0].equals("--measure")) {
+            measure(Paths.get(args[1]));
+            return;
+        }
+
+        List<Long> sizes = new ArrayList<>(Arrays.asList(1_000_000L, 10_000_000L));
+        Path dir = Paths.get("scale-data");
+        String heap = null;
+        String mode = null;
+        List<String> generatorArgs = new ArrayList<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--sizes" -> {
+                    sizes.clear();
+                    for (String size : args[i + 1].split(",")) sizes.add(DatasetGenerator.parseCount(size));
+                }
+                case "--dir" -> dir = Paths.get(args[i + 1]);
+                case "--heap" -> heap = args[i + 1];
+                case "--mode" -> mode = args[i + 1];
+                default -> {
+                    generatorArgs.add(args[i]);
+                    generatorArgs.add(args[i + 1]);
+                }
+            }
+        }
+
+        System.out.printf("%-10s %10s %10s %12s %10s %12s %10s %10s%n",
+            "rows", "file MB", "load ms", "rows/s", "peak MB", "1st query ms", "p50 us", "p99 us");
+        for (long size : sizes) {
+            DatasetGenerator generator = new DatasetGenerator().rows(size);
+            String[] options = generatorArgs.toArray(new String[0]);
+            if (DatasetGenerator.configure(generator, options, 0) < options.length) {
+                System.err.println("Unknown option in: " + String.join(" ", generatorArgs));
+                System.exit(2);
+            }
+            generator.rows(size);
+
+            // the file name carries the settings, so changing any of them makes a new file instead of reusing a stale one
+            String suffix = generatorArgs.isEmpty() ? "" : "_" + String.join("", generatorArgs).replaceAll("[^A-Za-z0-9.]", "");
+            Path file = dir.resolve("scale_" + size + suffix + ".csv");
+            if (!Files.exists(file)) {
+                System.out.printf("generating %s...%n", file);
+                generator.write(file);
+            }
+
+            String result = runMeasurement(file, heap, mode);
+            System.out.printf("%-10d %10.1f %s%n", size, Files.size(file) / (1024.0 * 1024.0), result);
+        }
+    }
+
+    /**
+     * Measures one file in a child JVM with the same class path, returns the line it printed
+     */
+    private static String runMeasurement(Path file, String heap, String mode) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (heap != null) command.add("-Xmx" + heap);
+        if (mode != null) command.add("-Dscale.mode=" + mode);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ScaleTest.class.getName());
+        command.add("--measure");
+        command.add(file.toString());
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String last = "failed";
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("RESULT ")) {
+                    last = line.substring(7);
+                } else if (line.contains("OutOfMemoryError")) {
+                    last = "out of memory";
+                }
+            }
+        }
+        int exit = process.waitFor();
+        return exit == 0 ? last : last + " (exit " + exit + ")";
+    }
+
+    // runs inside the child JVM
+    private static void measure(Path file) throws IOException {
+        String mode = System.getProperty("scale.mode");
+        DataLoader.ParseMode parseMode = mode != null ? DataLoader.ParseMode.valueOf(mode.toUpperCase(Locale.ROOT))
+            : Runtime.getRuntime().availableProcessors() > 1 ? DataLoader.ParseMode.PARALLEL : DataLoader.ParseMode.MAPPED;
+
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                heapPools.add(pool);
+            }
+        }
+
+        DataLoader loader = new DataLoader();
+        long start = System.nanoTime();
+        try {
+            loader.loadCSV(file.toString(), parseMode);
+        } catch (OutOfMemoryError e) {
+            System.out.println("RESULT out of memory while loading");
+            System.exit(1);
+        }
+        double loadMs = (System.nanoTime() - start) / 1e6;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peak += pool.getPeakUsage().getUsed();
+        }
+
+        CountryDataset dataset = loader.getDataset();
+        DataAnalyser analyser = new DataAnalyser(loader);
+        Random random = new Random(7);
+
+        start = System.nanoTime();
+        uiQuery(analyser, dataset, random);
+        double firstMs = (System.nanoTime() - start) / 1e6;
+
+        // a few hundred to warm up the JIT, then the ones that count
+        for (int i = 0; i < 500; i++) uiQuery(analyser, dataset, random);
+        long[] times = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            long t = System.nanoTime();
+            sink += uiQuery(analyser, dataset, random);
+            times[i] = System.nanoTime() - t;
+        }
+        Arrays.sort(times);
+
+        System.out.printf("RESULT %10.0f %12.0f %10.0f %12.1f %10.1f %10.1f%n",
+            loadMs, dataset.size() / (loadMs / 1000), peak / (1024.0 * 1024.0), firstMs,
+            times[QUERIES / 2] / 1e3, times[QUERIES * 99 / 100] / 1e3);
+    }
+
+    /**
+     * What a slider move costs the app: a random year window over a few countries, full stats card for each
+     */
+    private static double uiQuery(DataAnalyser analyser, CountryDataset dataset, Random random) {
+        int span = Math.max(1, dataset.maxYear() - dataset.minYear());
+        int a = dataset.minYear() + random.nextInt(span);
+        int b = dataset.minYear() + random.nextInt(span);
+        double checksum = 0;
+        for (int c = 0; c < COUNTRIES_PER_QUERY && dataset.countryCount() > 0; c++) {
+            DataSlice slice = dataset.slice(random.nextInt(dataset.countryCount()), Math.min(a, b), Math.max(a, b));
+            WindowSummary summary = analyser.getWindowSummary(slice);
+            checksum += summary.getMedian() + summary.getStats().getStdDev();
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,32 @@
+package ui;
+
+/**
+ * Tick spacing and labels for the charts that draw their own axes (the canvas view and image export)
+ */
+final class AxisTicks {
+
+    private AxisTicks() {
+    }
+
+    /**
+     * Rounds a rough tick spacing to 1, 2 or 5 times a power of ten
+     */
+    static double niceStep(double rough) {
+        if (rough <= 0 || Double.isNaN(rough)) return 1;
+        double power = Math.pow(10, Math.floor(Math.log10(rough)));
+        double fraction = rough / power;
+        if (fraction <= 1) return power;
+        if (fraction <= 2) return 2 * power;
+        if (fraction <= 5) return 5 * power;
+        return 10 * power;
+    }
+
+    /**
+     * Tick label with just enough decimals for the step
+     */
+    static String format(double value, double step) {
+        if (step >= 1) return String.valueOf(Math.round(value));
+        int decimals = (int) Math.ceil(-Math.log10(step));
+        return String.format("%." + decimals + "f", value);
+    }
+}
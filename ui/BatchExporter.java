@@ -0,0 +1,191 @@
+package ui;
+
+import data.CountryDataset;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exports lots of charts at once without touching the FX thread. Every chart is drawn off screen with
+ * ChartImageRenderer and PNG encoded on a worker pool. File names only depend on the countries and years, so
+ * running the same export twice gives the same files.
+ */
+final class BatchExporter {
+
+    /**
+     * One chart to export
+     */
+    static final class Job {
+        final List<String> countries;
+        final int minYear;
+        final int maxYear;
+        final String fileName;
+
+        Job(List<String> countries, int minYear, int maxYear, String fileName) {
+            this.countries = countries;
+            this.minYear = minYear;
+            this.maxYear = maxYear;
+            this.fileName = fileName;
+        }
+    }
+
+    /**
+     * Called from the worker threads after every finished chart
+     */
+    interface Progress {
+        void update(int done, int total);
+    }
+
+    private final ChartImageRenderer renderer;
+    private final List<String> colors;
+    private final int threads;
+
+    BatchExporter(ChartImageRenderer renderer, List<String> colors, int threads) {
+        this.renderer = renderer;
+        this.colors = colors;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * One chart per country in the dataset for the same year range, leaving out countries with no rows in it
+     */
+    static List<Job> everyCountry(CountryDataset dataset, int minYear, int maxYear) {
+        List<List<String>> groups = new ArrayList<>();
+        for (String country : dataset.countryNames()) {
+            groups.add(List.of(country));
+        }
+        return jobs(dataset, groups, minYear, maxYear, maxYear - minYear + 1);
+    }
+
+    /**
+     * One chart per country and year window, windows of windowYears from minYear up to maxYear. Windows the
+     * country has no rows in are left out.
+     */
+    static List<Job> windows(CountryDataset dataset, List<String> countries, int minYear, int maxYear, int windowYears) {
+        List<List<String>> groups = new ArrayList<>();
+        for (String country : countries) {
+            groups.add(List.of(country));
+        }
+        return jobs(dataset, groups, minYear, maxYear, windowYears);
+    }
+
+    private static List<Job> jobs(CountryDataset dataset, List<List<String>> groups, int minYear, int maxYear, int windowYears) {
+        List<Job> jobs = new ArrayList<>();
+        Set<String> used = new HashSet<>();
+        for (List<String> group : groups) {
+            for (int from = minYear; from <= maxYear; from += windowYears) {
+                int to = Math.min(maxYear, from + windowYears - 1);
+                if (!hasRows(dataset, group, from, to)) continue;   // would only be a blank PNG
+                String base = fileName(group, from, to);
+                // two names that only differ in accents or punctuation would clash, number them in order
+                String name = base;
+                for (int n = 2; !used.add(name); n++) {
+                    name = base + "_" + n;
+                }
+                jobs.add(new Job(group, from, to, name + ".png"));
+            }
+        }
+        return jobs;
+    }
+
+    private static boolean hasRows(CountryDataset dataset, List<String> countries, int minYear, int maxYear) {
+        for (String country : countries) {
+            if (!dataset.slice(country, minYear, maxYear).isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * e.g. "united_kingdom_1990-2020"
+     */
+    static String fileName(List<String> countries, int minYear, int maxYear) {
+        StringBuilder name = new StringBuilder();
+        for (String country : countries) {
+            if (name.length() > 0) name.append("_vs_");
+            String clean = sanitise(country);
+            name.append(clean.isEmpty() ? "country" : clean);
+        }
+        return name.append('_').append(minYear).append('-').append(maxYear).toString();
+    }
+
+    /**
+     * Lower case ASCII letters and digits joined by single underscores, so "Côte d'Ivoire" becomes "cote_d_ivoire"
+     */
+    static String sanitise(String name) {
+        String plain = Normalizer.normalize(name, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+        return plain.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_|_$", "");
+    }
+
+    /**
+     * Renders and writes every job into directory. Completes with the number of files written, or with the
+     * first error, in which case the charts that havent started yet are cancelled and the running ones
+     * interrupted.
+     */
+    CompletableFuture<Integer> export(CountryDataset dataset, List<Job> jobs, Path directory, Progress progress) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "chart-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger done = new AtomicInteger();
+        int total = jobs.size();
+
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[total];
+        for (int i = 0; i < total; i++) {
+            Job job = jobs.get(i);
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                write(renderer.render(dataset, job.countries, colors, job.minYear, job.maxYear), directory.resolve(job.fileName));
+                progress.update(done.incrementAndGet(), total);
+            }, pool);
+            // allOf would wait for every other chart before reporting the failure
+            tasks[i].whenComplete((ignored, ex) -> {
+                if (ex != null) result.completeExceptionally(ex);
+            });
+        }
+        CompletableFuture.allOf(tasks).thenRun(() -> result.complete(done.get()));
+
+        // also runs if the caller cancels the export
+        result.whenComplete((count, ex) -> {
+            if (ex != null) {
+                for (CompletableFuture<?> task : tasks) task.cancel(false);
+            }
+            pool.shutdownNow();
+        });
+        return result;
+    }
+
+    /**
+     * Writes to a temp file first so a half written PNG never has the final name
+     */
+    private static void write(BufferedImage image, Path file) {
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            ImageIO.write(image, "png", temp.toFile());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package ui;
+
+import data.CountryDataset;
+import data.DataSlice;
+import data.RangeQueryEngine;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.input.ScrollEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Draws every country in the dataset straight onto a Canvas, for when the LineChart would need far too many
+ * nodes. Lines are read from the dataset columns on each frame and squeezed to at most a few segments per
+ * pixel column, so the cost depends on the plot width rather than on how many rows there are. Nothing runs
+ * between changes: a change asks for one frame, and the frame timer stops again once it has drawn.
+ *
+ * Drag to pan and scroll to zoom (both only move the year axis), double click to go back to the year range
+ * from the sliders. Hovering finds the closest line under the mouse and highlights it.
+ */
+final class CanvasChart extends Region {
+    private static final double LEFT = 70;
+    private static final double RIGHT = 20;
+    private static final double TOP = 45;
+    private static final double BOTTOM = 50;
+    private static final double HOVER_DISTANCE = 12;
+    private static final String FONT_FAMILY = "System";
+
+    private final Canvas canvas = new Canvas();
+    private final Color background;
+    private final Color textColor;
+    private final Color gridColor;
+    private final Color panelColor;
+
+    private CountryDataset dataset;
+    private RangeQueryEngine rangeEngine;
+    private final List<Integer> highlighted = new ArrayList<>();
+    private boolean[] isHighlighted = new boolean[0];     // by country id, for the per country loop
+    private final List<Color> highlightColors = new ArrayList<>();
+    private int rangeMin;
+    private int rangeMax;
+    private double viewMin;
+    private double viewMax;
+
+    // y range of the current view, only worked out again when the view or the data changes
+    private double yMin;
+    private double yMax;
+    private boolean yRangeValid;
+
+    private int hoveredCountry = -1;
+    private int hoveredYear;
+    private double hoveredValue;
+    private double mouseX;
+    private double mouseY;
+    private double dragStartX = Double.NaN;
+    private double dragStartMin;
+    private double dragStartMax;
+
+    private boolean dirty = true;
+
+    // draws the next frame and stops, started again by requestDraw()
+    private final AnimationTimer redraw = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            stop();
+            if (dirty) {
+                dirty = false;
+                draw();
+            }
+        }
+    };
+
+    CanvasChart(String background, String textColor, String gridColor, String panelColor) {
+        this.background = Color.web(background);
+        this.textColor = Color.web(textColor);
+        this.gridColor = Color.web(gridColor);
+        this.panelColor = Color.web(panelColor);
+        getChildren().add(canvas);
+
+        setOnMousePressed(this::onMousePressed);
+        setOnMouseDragged(this::onMouseDragged);
+        setOnMouseReleased(e -> dragStartX = Double.NaN);
+        setOnMouseMoved(this::onMouseMoved);
+        setOnMouseExited(e -> setHovered(-1, 0, 0));
+        setOnScroll(this::onScroll);
+        setOnMouseClicked(e -> {
+            if (e.getButton() == MouseButton.PRIMARY && e.getClickCount() == 2) {
+                setView(rangeMin, rangeMax);
+            }
+        });
+
+        // while the canvas isnt showing there is nothing to draw, catch up when it comes back
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) {
+                redraw.stop();
+            } else if (dirty) {
+                redraw.start();
+            }
+        });
+    }
+
+    /**
+     * Marks the canvas as out of date and draws it on the next frame, if it is in a scene
+     */
+    private void requestDraw() {
+        dirty = true;
+        if (getScene() != null) {
+            redraw.start();
+        }
+    }
+
+    /**
+     * Shows a dataset (through its range engine, which also answers the y range), year range and the countries
+     * to pick out in colour. The view only jumps back to the year range when that range or the dataset actually
+     * changed, so panning survives other updates.
+     */
+    void show(RangeQueryEngine rangeEngine, int minYear, int maxYear, List<String> countries, List<String> colors) {
+        CountryDataset dataset = rangeEngine == null ? null : rangeEngine.getDataset();
+        this.rangeEngine = rangeEngine;
+        highlighted.clear();
+        highlightColors.clear();
+        isHighlighted = new boolean[dataset == null ? 0 : dataset.countryCount()];
+        if (dataset != null) {
+            for (int i = 0; i < countries.size(); i++) {
+                int id = dataset.countryId(countries.get(i));
+                if (id >= 0) {
+                    highlighted.add(id);
+                    highlightColors.add(Color.web(colors.get(i)));
+                    isHighlighted[id] = true;
+                }
+            }
+        }
+
+        if (dataset != this.dataset || minYear != rangeMin || maxYear != rangeMax) {
+            this.dataset = dataset;
+            rangeMin = minYear;
+            rangeMax = maxYear;
+            hoveredCountry = -1;
+            setView(minYear, maxYear);
+        }
+        requestDraw();
+    }
+
+    private void setView(double min, double max) {
+        viewMin = min;
+        viewMax = Math.max(max, min + 1);
+        yRangeValid = false;
+        requestDraw();
+    }
+
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            requestDraw();
+        }
+    }
+
+    // ========== DRAWING ==========
+
+    private void draw() {
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        gc.setFill(background);
+        gc.fillRect(0, 0, width, height);
+
+        double plotWidth = width - LEFT - RIGHT;
+        double plotHeight = height - TOP - BOTTOM;
+        if (plotWidth <= 10 || plotHeight <= 10) return;
+
+        gc.setFill(textColor);
+        gc.setFont(Font.font(FONT_FAMILY, FontWeight.BOLD, 16));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText("All Countries", LEFT + plotWidth / 2, TOP / 2);
+
+        if (dataset == null || dataset.isEmpty()) {
+            gc.setFont(Font.font(FONT_FAMILY, 14));
+            gc.fillText("No data loaded", LEFT + plotWidth / 2, TOP + plotHeight / 2);
+            return;
+        }
+
+        if (!yRangeValid) {
+            computeYRange();
+        }
+        drawAxes(gc, plotWidth, plotHeight);
+
+        gc.save();
+        gc.beginPath();
+        gc.rect(LEFT, TOP, plotWidth, plotHeight);
+        gc.clip();
+
+        gc.setLineWidth(1);
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            if (isHighlighted[id] || id == hoveredCountry) continue;
+            gc.setStroke(backgroundLineColor(id));
+            strokeCountry(gc, id, plotWidth, plotHeight);
+        }
+
+        gc.setLineWidth(2.5);
+        for (int i = 0; i < highlighted.size(); i++) {
+            gc.setStroke(highlightColors.get(i));
+            strokeCountry(gc, highlighted.get(i), plotWidth, plotHeight);
+        }
+
+        if (hoveredCountry >= 0) {
+            gc.setLineWidth(2.5);
+            gc.setStroke(textColor);
+            strokeCountry(gc, hoveredCountry, plotWidth, plotHeight);
+            gc.setFill(textColor);
+            gc.fillOval(toX(hoveredYear, plotWidth) - 4, toY(hoveredValue, plotHeight) - 4, 8, 8);
+        }
+        gc.restore();
+
+        drawLegend(gc, width);
+        if (hoveredCountry >= 0) {
+            drawTooltip(gc, width, height);
+        }
+    }
+
+    /**
+     * Strokes one country as a polyline. Points that land in the same pixel column are reduced to the
+     * column's first, lowest, highest and last point, which looks the same but is far fewer line segments.
+     */
+    private void strokeCountry(GraphicsContext gc, int id, double plotWidth, double plotHeight) {
+        DataSlice slice = visibleSlice(id);
+        int size = slice.size();
+        if (size == 0) return;
+
+        gc.beginPath();
+        int column = Integer.MIN_VALUE;
+        double low = 0;
+        double high = 0;
+        double last = 0;
+        boolean started = false;
+        for (int i = 0; i < size; i++) {
+            double x = toX(slice.year(i), plotWidth);
+            double y = toY(slice.emission(i), plotHeight);
+            int pixel = (int) x;
+            if (pixel != column) {
+                if (started) {
+                    gc.lineTo(column, low);
+                    gc.lineTo(column, high);
+                    gc.lineTo(column, last);
+                    gc.lineTo(x, y);
+                } else {
+                    gc.moveTo(x, y);
+                    started = true;
+                }
+                column = pixel;
+                low = y;
+                high = y;
+            } else {
+                low = Math.min(low, y);
+                high = Math.max(high, y);
+            }
+            last = y;
+        }
+        gc.lineTo(column, low);
+        gc.lineTo(column, high);
+        gc.lineTo(column, last);
+        gc.stroke();
+    }
+
+    private void drawAxes(GraphicsContext gc, double plotWidth, double plotHeight) {
+        gc.setStroke(gridColor);
+        gc.setLineWidth(1);
+        gc.setFill(textColor);
+        gc.setFont(Font.font(FONT_FAMILY, 11));
+
+        double yearStep = Math.max(1, AxisTicks.niceStep((viewMax - viewMin) / Math.max(2, plotWidth / 90)));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.TOP);
+        for (double year = Math.ceil(viewMin / yearStep) * yearStep; year <= viewMax; year += yearStep) {
+            double x = Math.round(toX(year, plotWidth)) + 0.5;
+            gc.strokeLine(x, TOP, x, TOP + plotHeight);
+            gc.fillText(String.valueOf((long) year), x, TOP + plotHeight + 6);
+        }
+
+        double valueStep = AxisTicks.niceStep((yMax - yMin) / Math.max(2, plotHeight / 60));
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setTextBaseline(VPos.CENTER);
+        for (double value = Math.ceil(yMin / valueStep) * valueStep; value <= yMax; value += valueStep) {
+            double y = Math.round(toY(value, plotHeight)) + 0.5;
+            gc.strokeLine(LEFT, y, LEFT + plotWidth, y);
+            gc.fillText(AxisTicks.format(value, valueStep), LEFT - 8, y);
+        }
+
+        gc.setFont(Font.font(FONT_FAMILY, FontWeight.BOLD, 12));
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.BOTTOM);
+        gc.fillText("Year", LEFT + plotWidth / 2, TOP + plotHeight + BOTTOM - 4);
+        gc.save();
+        gc.translate(16, TOP + plotHeight / 2);
+        gc.rotate(-90);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.fillText("CO₂ Emissions (tonnes per capita)", 0, 0);
+        gc.restore();
+    }
+
+    private void drawLegend(GraphicsContext gc, double width) {
+        List<String> names = new ArrayList<>();
+        List<Color> colors = new ArrayList<>();
+        for (int i = 0; i < highlighted.size(); i++) {
+            names.add(dataset.countryName(highlighted.get(i)));
+            colors.add(highlightColors.get(i));
+        }
+        names.add(dataset.countryCount() + " countries");
+        colors.add(gridColor);
+
+        gc.setFont(Font.font(FONT_FAMILY, 12));
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.CENTER);
+        double rowHeight = 18;
+        double boxWidth = 180;
+        double x = width - RIGHT - boxWidth - 10;
+        double y = TOP + 10;
+        gc.setFill(panelColor);
+        gc.fillRoundRect(x, y, boxWidth, names.size() * rowHeight + 10, 8, 8);
+        for (int i = 0; i < names.size(); i++) {
+            double rowY = y + 5 + rowHeight * i + rowHeight / 2;
+            gc.setFill(colors.get(i));
+            gc.fillRect(x + 10, rowY - 5, 10, 10);
+            gc.setFill(textColor);
+            gc.fillText(names.get(i), x + 28, rowY, boxWidth - 36);
+        }
+    }
+
+    private void drawTooltip(GraphicsContext gc, double width, double height) {
+        String[] lines = {
+            dataset.countryName(hoveredCountry),
+            "Year: " + hoveredYear,
+            String.format("Emissions: %.3f tonnes per capita", hoveredValue)
+        };
+        double boxWidth = 240;
+        double boxHeight = lines.length * 16 + 12;
+        double x = Math.min(mouseX + 14, width - boxWidth - 4);
+        double y = Math.min(mouseY + 14, height - boxHeight - 4);
+
+        gc.setFill(panelColor);
+        gc.fillRoundRect(x, y, boxWidth, boxHeight, 6, 6);
+        gc.setStroke(gridColor);
+        gc.setLineWidth(1);
+        gc.strokeRoundRect(x, y, boxWidth, boxHeight, 6, 6);
+        gc.setFill(textColor);
+        gc.setFont(Font.font(FONT_FAMILY, 12));
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        for (int i = 0; i < lines.length; i++) {
+            gc.fillText(lines[i], x + 8, y + 6 + i * 16);
+        }
+    }
+
+    // ========== INTERACTION ==========
+
+    private void onMousePressed(MouseEvent e) {
+        if (e.getButton() != MouseButton.PRIMARY) return;
+        dragStartX = e.getX();
+        dragStartMin = viewMin;
+        dragStartMax = viewMax;
+    }
+
+    private void onMouseDragged(MouseEvent e) {
+        if (Double.isNaN(dragStartX)) return;
+        double plotWidth = canvas.getWidth() - LEFT - RIGHT;
+        double shift = (dragStartX - e.getX()) / plotWidth * (dragStartMax - dragStartMin);
+        setView(dragStartMin + shift, dragStartMax + shift);
+        setHovered(-1, 0, 0);
+    }
+
+    private void onScroll(ScrollEvent e) {
+        if (e.getDeltaY() == 0) return;
+        double plotWidth = canvas.getWidth() - LEFT - RIGHT;
+        double anchor = toYear(e.getX(), plotWidth);
+        double factor = Math.pow(1.1, -e.getDeltaY() / 40);
+        double span = Math.max(2, (viewMax - viewMin) * factor);
+        double left = (anchor - viewMin) / (viewMax - viewMin);
+        setView(anchor - span * left, anchor + span * (1 - left));
+        e.consume();
+    }
+
+    /**
+     * Finds the line closest to the mouse at the year under it
+     */
+    private void onMouseMoved(MouseEvent e) {
+        mouseX = e.getX();
+        mouseY = e.getY();
+        double plotWidth = canvas.getWidth() - LEFT - RIGHT;
+        double plotHeight = canvas.getHeight() - TOP - BOTTOM;
+        if (dataset == null || !yRangeValid || mouseX < LEFT || mouseX > LEFT + plotWidth || mouseY < TOP || mouseY > TOP + plotHeight) {
+            setHovered(-1, 0, 0);
+            return;
+        }
+
+        int year = (int) Math.round(toYear(mouseX, plotWidth));
+        int best = -1;
+        double bestValue = 0;
+        double bestDistance = HOVER_DISTANCE;
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            DataSlice slice = dataset.slice(id, year, year);
+            if (slice.isEmpty()) continue;
+            double value = slice.emission(0);
+            double distance = Math.abs(toY(value, plotHeight) - mouseY);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = id;
+                bestValue = value;
+            }
+        }
+        setHovered(best, year, bestValue);
+        if (best >= 0) requestDraw();   // the tooltip follows the mouse
+    }
+
+    private void setHovered(int country, int year, double value) {
+        if (country != hoveredCountry || year != hoveredYear) {
+            hoveredCountry = country;
+            hoveredYear = year;
+            hoveredValue = value;
+            requestDraw();
+        }
+    }
+
+    // ========== HELPERS ==========
+
+    private DataSlice visibleSlice(int id) {
+        return dataset.slice(id, (int) Math.floor(viewMin), (int) Math.ceil(viewMax));
+    }
+
+    /**
+     * Lowest and highest value in view, two range engine lookups per country instead of reading every row
+     */
+    private void computeYRange() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int id = 0; id < dataset.countryCount(); id++) {
+            DataSlice slice = visibleSlice(id);
+            if (slice.isEmpty()) continue;
+            min = Math.min(min, dataset.emissionAt(rangeEngine.argMin(slice.from(), slice.to())));
+            max = Math.max(max, dataset.emissionAt(rangeEngine.argMax(slice.from(), slice.to())));
+        }
+        if (min > max) {
+            min = 0;
+            max = 1;
+        }
+        yMin = Math.min(0, min);
+        yMax = max > yMin ? max * 1.05 : yMin + 1;
+        yRangeValid = true;
+    }
+
+    private double toX(double year, double plotWidth) {
+        return LEFT + (year - viewMin) / (viewMax - viewMin) * plotWidth;
+    }
+
+    private double toYear(double x, double plotWidth) {
+        return viewMin + (x - LEFT) / plotWidth * (viewMax - viewMin);
+    }
+
+    private double toY(double value, double plotHeight) {
+        return TOP + plotHeight - (value - yMin) / (yMax - yMin) * plotHeight;
+    }
+
+    private Color backgroundLineColor(int id) {
+        return Color.hsb((id * 137.508) % 360, 0.45, 0.85, 0.45);
+    }
+}
@@ -0,0 +1,98 @@
+package ui;
+
+import javafx.geometry.Point2D;
+import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.XYChart;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One tooltip for the whole chart instead of one per data point. When the mouse moves over the plot its x
+ * position is turned into a year, every visible line is binary searched for its point closest to that year,
+ * and the one nearest to the mouse gets the tooltip. The text is only formatted when the hovered point
+ * changes, so the cost of drawing a chart no longer grows with the number of points.
+ */
+final class ChartHover {
+    private static final double MAX_DISTANCE = 30;   // pixels, further away than this shows nothing
+
+    private final XYChart<Number, Number> chart;
+    private final NumberAxis xAxis;
+    private final NumberAxis yAxis;
+    private final Tooltip tooltip;
+
+    private final List<String> names = new ArrayList<>();
+    private final List<SeriesData> lines = new ArrayList<>();
+    private int hoveredLine = -1;
+    private int hoveredPoint = -1;
+
+    ChartHover(XYChart<Number, Number> chart, NumberAxis xAxis, NumberAxis yAxis, String style) {
+        this.chart = chart;
+        this.xAxis = xAxis;
+        this.yAxis = yAxis;
+        this.tooltip = new Tooltip();
+        tooltip.setStyle(style);
+
+        chart.addEventHandler(MouseEvent.MOUSE_MOVED, this::onMouseMoved);
+        chart.addEventHandler(MouseEvent.MOUSE_EXITED, e -> hide());
+    }
+
+    /**
+     * Replaces the lines that can be hovered, call this whenever the chart content changes
+     */
+    void setLines(List<String> lineNames, List<SeriesData> linePoints) {
+        names.clear();
+        names.addAll(lineNames);
+        lines.clear();
+        lines.addAll(linePoints);
+        hide();
+    }
+
+    private void onMouseMoved(MouseEvent e) {
+        Point2D onXAxis = xAxis.sceneToLocal(e.getSceneX(), e.getSceneY());
+        if (lines.isEmpty() || onXAxis.getX() < 0 || onXAxis.getX() > xAxis.getWidth()) {
+            hide();
+            return;
+        }
+        double year = xAxis.getValueForDisplay(onXAxis.getX()).doubleValue();
+
+        int bestLine = -1;
+        int bestPoint = -1;
+        double bestDistance = MAX_DISTANCE;
+        for (int line = 0; line < lines.size(); line++) {
+            SeriesData points = lines.get(line);
+            int point = points.indexOfNearest(year);
+            if (point < 0) continue;
+
+            double x = xAxis.localToScene(xAxis.getDisplayPosition(points.year(point)), 0).getX();
+            double y = yAxis.localToScene(0, yAxis.getDisplayPosition(points.value(point))).getY();
+            double distance = Math.hypot(x - e.getSceneX(), y - e.getSceneY());
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestLine = line;
+                bestPoint = point;
+            }
+        }
+
+        if (bestLine < 0) {
+            hide();
+            return;
+        }
+        if (bestLine != hoveredLine || bestPoint != hoveredPoint) {
+            hoveredLine = bestLine;
+            hoveredPoint = bestPoint;
+            SeriesData points = lines.get(bestLine);
+            tooltip.setText(String.format("%s\nYear: %d\nEmissions: %.3f tonnes per capita",
+                names.get(bestLine), points.year(bestPoint), points.value(bestPoint)));
+        }
+        tooltip.show(chart, e.getScreenX() + 14, e.getScreenY() + 14);
+    }
+
+    private void hide() {
+        hoveredLine = -1;
+        hoveredPoint = -1;
+        tooltip.hide();
+    }
+}
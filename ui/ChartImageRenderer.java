@@ -0,0 +1,131 @@
+package ui;
+
+import data.CountryDataset;
+import data.DataSlice;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Draws a line chart into a BufferedImage with Java2D, so charts can be made on any thread without a window
+ * or the FX thread. Used by the batch export, it follows the look of the dark chart in the app.
+ */
+final class ChartImageRenderer {
+    private static final int LEFT = 80;
+    private static final int RIGHT = 30;
+    private static final int TOP = 60;
+    private static final int BOTTOM = 70;
+
+    private final int width;
+    private final int height;
+    private final Color background;
+    private final Color textColor;
+    private final Color gridColor;
+
+    ChartImageRenderer(int width, int height, String background, String textColor, String gridColor) {
+        this.width = width;
+        this.height = height;
+        this.background = Color.decode(background);
+        this.textColor = Color.decode(textColor);
+        this.gridColor = Color.decode(gridColor);
+    }
+
+    /**
+     * Renders the given countries between minYear and maxYear, each line in the matching colour
+     */
+    BufferedImage render(CountryDataset dataset, List<String> countries, List<String> colors, int minYear, int maxYear) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+
+            double plotWidth = width - LEFT - RIGHT;
+            double plotHeight = height - TOP - BOTTOM;
+            DataSlice[] slices = new DataSlice[countries.size()];
+            double max = Double.NEGATIVE_INFINITY;
+            double min = 0;
+            for (int i = 0; i < slices.length; i++) {
+                slices[i] = dataset.slice(countries.get(i), minYear, maxYear);
+                for (int j = 0; j < slices[i].size(); j++) {
+                    max = Math.max(max, slices[i].emission(j));
+                    min = Math.min(min, slices[i].emission(j));
+                }
+            }
+            if (!(max > min)) max = min + 1;
+            double yMin = min;
+            double yMax = max * 1.05;
+            double xMin = minYear;
+            double xMax = Math.max(maxYear, minYear + 1);
+
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 20));
+            g.setColor(textColor);
+            String title = String.join(", ", countries) + "  " + minYear + " - " + maxYear;
+            drawCentered(g, title, width / 2.0, TOP / 2.0 + 8);
+
+            // grid and tick labels
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+            g.setStroke(new BasicStroke(1));
+            double yearStep = Math.max(1, AxisTicks.niceStep((xMax - xMin) / Math.max(2, plotWidth / 90)));
+            for (double year = Math.ceil(xMin / yearStep) * yearStep; year <= xMax; year += yearStep) {
+                double x = LEFT + (year - xMin) / (xMax - xMin) * plotWidth;
+                g.setColor(gridColor);
+                g.drawLine((int) x, TOP, (int) x, (int) (TOP + plotHeight));
+                g.setColor(textColor);
+                drawCentered(g, String.valueOf((long) year), x, TOP + plotHeight + 20);
+            }
+            double valueStep = AxisTicks.niceStep((yMax - yMin) / Math.max(2, plotHeight / 60));
+            FontMetrics metrics = g.getFontMetrics();
+            for (double value = Math.ceil(yMin / valueStep) * valueStep; value <= yMax; value += valueStep) {
+                double y = TOP + plotHeight - (value - yMin) / (yMax - yMin) * plotHeight;
+                g.setColor(gridColor);
+                g.drawLine(LEFT, (int) y, (int) (LEFT + plotWidth), (int) y);
+                g.setColor(textColor);
+                String label = AxisTicks.format(value, valueStep);
+                g.drawString(label, LEFT - 8 - metrics.stringWidth(label), (int) y + metrics.getAscent() / 2 - 1);
+            }
+
+            g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 13));
+            drawCentered(g, "Year", LEFT + plotWidth / 2, height - 20);
+            AffineTransform saved = g.getTransform();
+            g.rotate(-Math.PI / 2);
+            drawCentered(g, "CO₂ Emissions (tonnes per capita)", -(TOP + plotHeight / 2), 22);
+            g.setTransform(saved);
+
+            // the lines
+            g.setClip(LEFT, TOP, (int) plotWidth + 1, (int) plotHeight + 1);
+            g.setStroke(new BasicStroke(2.5f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+            for (int i = 0; i < slices.length; i++) {
+                DataSlice slice = slices[i];
+                if (slice.isEmpty()) continue;
+                Path2D.Double path = new Path2D.Double();
+                for (int j = 0; j < slice.size(); j++) {
+                    double x = LEFT + (slice.year(j) - xMin) / (xMax - xMin) * plotWidth;
+                    double y = TOP + plotHeight - (slice.emission(j) - yMin) / (yMax - yMin) * plotHeight;
+                    if (j == 0) path.moveTo(x, y); else path.lineTo(x, y);
+                }
+                g.setColor(Color.decode(colors.get(i % colors.size())));
+                g.draw(path);
+            }
+            g.setClip(null);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static void drawCentered(Graphics2D g, String text, double x, double y) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, (float) (x - metrics.stringWidth(text) / 2.0), (float) y);
+    }
+}
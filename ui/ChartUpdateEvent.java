@@ -0,0 +1,43 @@
+package ui;
+
+import data.Metrics;
+import data.TimedEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for one half of a chart update: "analytics" is the background work (slicing, stats,
+ * downsampling) and "render" is the FX thread bringing the chart and panels up to date. Comparing the two shows
+ * whether a slow slider is the maths or the drawing. Both are timed in Metrics as "update.<phase>" too.
+ */
+@Name("climate.ChartUpdate")
+@Label("Chart Update")
+@Category("Climate")
+@Description("Analytics or render part of one chart update")
+final class ChartUpdateEvent extends TimedEvent {
+    @Label("Phase")
+    String phase;
+
+    @Label("Series")
+    int series;
+
+    @Label("Points")
+    int points;
+
+    static ChartUpdateEvent start(String phase) {
+        ChartUpdateEvent event = new ChartUpdateEvent();
+        event.phase = phase;
+        event.startTiming();
+        return event;
+    }
+
+    void finish(int series, int points) {
+        this.series = series;
+        this.points = points;
+        finishTiming("update." + phase);
+        Metrics.set("chart.series", series);
+        Metrics.set("chart.points", points);
+    }
+}
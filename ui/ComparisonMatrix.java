@@ -0,0 +1,111 @@
+package ui;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.Tooltip;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.List;
+
+/**
+ * Pairwise comparison of the selected countries drawn as a grid on a canvas. Cell (row, column) is how much
+ * more (orange) or less (green) the row country emits on average than the column country, in percent.
+ * Drawing a canvas stays cheap with 50 countries (2500 cells) where that many labels would not.
+ */
+final class ComparisonMatrix extends Canvas {
+    private static final double CELL = 38;
+    private static final double HEADER = 110;
+    private static final String FONT_FAMILY = "System";
+
+    private final Color textColor;
+    private final Color gridColor;
+    private final Color more;
+    private final Color less;
+    private final Tooltip tooltip = new Tooltip();
+
+    private List<String> names = List.of();
+    private double[][] differences = new double[0][];
+
+    ComparisonMatrix(String textColor, String gridColor, String moreColor, String lessColor, String tooltipStyle) {
+        this.textColor = Color.web(textColor);
+        this.gridColor = Color.web(gridColor);
+        this.more = Color.web(moreColor);
+        this.less = Color.web(lessColor);
+        tooltip.setStyle(tooltipStyle);
+        addEventHandler(MouseEvent.MOUSE_MOVED, this::onMouseMoved);
+        addEventHandler(MouseEvent.MOUSE_EXITED, e -> tooltip.hide());
+    }
+
+    /**
+     * differences[row][column] is the percentage difference of the row mean against the column mean, NaN
+     * when one of them has no data
+     */
+    void show(List<String> names, double[][] differences) {
+        this.names = names;
+        this.differences = differences;
+        setWidth(HEADER + CELL * names.size());
+        setHeight(22 + CELL * names.size());
+        draw();
+    }
+
+    private void draw() {
+        GraphicsContext gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        int count = names.size();
+
+        gc.setFont(Font.font(FONT_FAMILY, 11));
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setFill(textColor);
+
+        // columns are numbered, rows carry the number and the name
+        gc.setTextAlign(TextAlignment.CENTER);
+        for (int c = 0; c < count; c++) {
+            gc.fillText(String.valueOf(c + 1), HEADER + CELL * c + CELL / 2, 11);
+        }
+        gc.setTextAlign(TextAlignment.LEFT);
+        for (int r = 0; r < count; r++) {
+            gc.fillText((r + 1) + "  " + names.get(r), 2, 22 + CELL * r + CELL / 2, HEADER - 6);
+        }
+
+        gc.setTextAlign(TextAlignment.CENTER);
+        for (int r = 0; r < count; r++) {
+            for (int c = 0; c < count; c++) {
+                double x = HEADER + CELL * c;
+                double y = 22 + CELL * r;
+                double diff = differences[r][c];
+                if (r != c && !Double.isNaN(diff)) {
+                    double strength = Math.min(1, Math.abs(diff) / 100) * 0.8 + 0.1;
+                    Color base = diff > 0 ? more : less;
+                    gc.setFill(Color.color(base.getRed(), base.getGreen(), base.getBlue(), strength));
+                    gc.fillRect(x, y, CELL, CELL);
+                    gc.setFill(textColor);
+                    gc.fillText(formatShort(diff), x + CELL / 2, y + CELL / 2, CELL - 4);
+                }
+                gc.setStroke(gridColor);
+                gc.strokeRect(x + 0.5, y + 0.5, CELL - 1, CELL - 1);
+            }
+        }
+    }
+
+    private void onMouseMoved(MouseEvent e) {
+        int c = (int) Math.floor((e.getX() - HEADER) / CELL);
+        int r = (int) Math.floor((e.getY() - 22) / CELL);
+        if (r < 0 || c < 0 || r >= names.size() || c >= names.size() || r == c || Double.isNaN(differences[r][c])) {
+            tooltip.hide();
+            return;
+        }
+        double diff = differences[r][c];
+        tooltip.setText(String.format("%s emits %.1f%% %s than %s on average",
+            names.get(r), Math.abs(diff), diff > 0 ? "more" : "less", names.get(c)));
+        tooltip.show(this, e.getScreenX() + 14, e.getScreenY() + 14);
+    }
+
+    private static String formatShort(double diff) {
+        if (Math.abs(diff) >= 1000) return diff > 0 ? ">+999" : "<-999";
+        return String.format("%+.0f%%", diff);
+    }
+}
@@ -0,0 +1,67 @@
+package ui;
+
+import java.util.Arrays;
+
+/**
+ * Cuts a line down to about as many points as the chart has pixels before it goes to the chart, so a long
+ * series doesnt turn into thousands of scene graph nodes nobody can see anyway.
+ *
+ * It uses min/max bucketing: the points are split into equal buckets and each bucket keeps only its lowest
+ * and highest point (in their original order). Every peak and dip survives, which matters more here than
+ * the exact shape between them. A window that already fits is returned untouched, so zooming into a
+ * narrower year range shows every point again.
+ */
+final class Downsampler {
+
+    private Downsampler() {
+    }
+
+    /**
+     * Returns at most maxPoints points (the first and last point are always kept)
+     */
+    static SeriesData minMax(SeriesData points, int maxPoints) {
+        int size = points.size();
+        if (maxPoints < 4 || size <= maxPoints) return points;
+
+        int buckets = (maxPoints - 2) / 2;
+        int inner = size - 2;
+        int[] years = new int[buckets * 2 + 2];
+        double[] values = new double[years.length];
+        int count = 0;
+
+        years[count] = points.year(0);
+        values[count++] = points.value(0);
+
+        for (int b = 0; b < buckets; b++) {
+            int from = 1 + (int) ((long) inner * b / buckets);
+            int to = 1 + (int) ((long) inner * (b + 1) / buckets);
+            if (from >= to) continue;
+
+            int min = from;
+            int max = from;
+            for (int i = from + 1; i < to; i++) {
+                double value = points.value(i);
+                if (value < points.value(min)) min = i;
+                if (value > points.value(max)) max = i;
+            }
+
+            int first = Math.min(min, max);
+            int second = Math.max(min, max);
+            years[count] = points.year(first);
+            values[count++] = points.value(first);
+            if (second != first) {
+                years[count] = points.year(second);
+                values[count++] = points.value(second);
+            }
+        }
+
+        years[count] = points.year(size - 1);
+        values[count++] = points.value(size - 1);
+
+        if (count < years.length) {
+            years = Arrays.copyOf(years, count);
+            values = Arrays.copyOf(values, count);
+        }
+        return new SeriesData(years, values);
+    }
+}
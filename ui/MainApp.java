@@ -5,6 +5,7 @@ import javafx.application.Application;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.chart.LineChart;
 import javafx.scene.chart.NumberAxis;
@@ -12,20 +13,27 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.FileChooser;
+import javafx.stage.Popup;
 import javafx.stage.Stage;
+import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.animation.SequentialTransition;
 import javafx.util.Duration;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.collections.transformation.FilteredList;
 // some other imports for javaIO like lists, file and hashmaps.
 import javax.imageio.ImageIO;
 import java.io.File;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.DoubleSummaryStatistics;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
 
 /**
  * Climate Data Visualiser - A  data visualisation application
@@ -39,17 +47,21 @@ public class MainApp extends Application {
     // ========== CORE COMPONENTS ==========
     private DataLoader loader;
     private DataAnalyser analyser;
-    private List<DataRecord> data;
+    private CountryDataset data;
     
     // ========== UI COMPONENTS ==========
     // Chart components
     private LineChart<Number, Number> lineChart;
     private NumberAxis xAxis;
     private NumberAxis yAxis;
+    private ChartHover chartHover;
+    private VBox chartContainer;
+    private CanvasChart canvasChart;
+    private boolean canvasView;
     
     // Controls
-    private ComboBox<String> countryBox1;
-    private ComboBox<String> countryBox2;
+    private ComboBox<String> countryBox;
+    private VBox selectionList;
     private Slider minYearSlider;
     private Slider maxYearSlider;
     private Label yearRangeLabel;
@@ -58,18 +70,42 @@ public class MainApp extends Application {
     private VBox statsContent;
     private VBox comparisonPanel;
     private Label statusLabel;
+    private Label cacheLabel;
+    private ToggleButton metricsToggle;
+    private Popup metricsOverlay;
+    private Label metricsText;
+    private Timeline metricsRefresh;
+
+    // Reused between chart updates instead of being rebuilt every time
+    private final SeriesUpdater seriesUpdater = new SeriesUpdater();
+    private final List<StatCard> statCards = new ArrayList<>();
+    private Label statsPlaceholder;
+    private Separator comparisonSeparator;
+    private Label comparisonLabel;
+    private Label peakInfoLabel;
+    private Label noComparisonLabel;
+    private ComparisonMatrix comparisonMatrix;
+    private ScrollPane matrixScroll;
     private ProgressIndicator loadingIndicator;
+    private ComboBox<RankingEngine.Metric> leaderboardMetric;
+    private ToggleButton leaderboardLowest;
+    private CheckBox leaderboardCountriesOnly;
+    private Label leaderboardWindow;
+    private final List<LeaderboardRow> leaderboardRows = new ArrayList<>();
+    private static final int LEADERBOARD_SIZE = 10;
     
     // ========== DATA MANAGEMENT ==========
     private ObservableList<String> allCountries = FXCollections.observableArrayList();
+    private final ObservableList<String> selectedCountries = FXCollections.observableArrayList();
     private int globalMinYear = 1750;
     private int globalMaxYear = 2025;
     private int exportCounter = 1;
+    private volatile CountrySearchIndex searchIndex;
+    private static final int MAX_SEARCH_RESULTS = 500;
     
-    // Performance caching so your computer doesnt blow up
-    private Map<String, DoubleSummaryStatistics> statsCache = new HashMap<>();
-    private Map<String, Double> medianCache = new HashMap<>();
-    private Map<String, Double> stdDevCache = new HashMap<>();
+    // Performance caching so your computer doesnt blow up, one entry per (country, from year, to year). It has a
+    // size limit (-Dclimate.cacheSize=...) and empties itself when a different dataset is loaded.
+    private final LongLruCache<WindowSummary> summaryCache = new LongLruCache<>(Integer.getInteger("climate.cacheSize", 4096));
     
     // ========== STYLING CONSTANTS ==========
     private final String PRIMARY_BG = "#1a1a1a";
@@ -81,6 +117,28 @@ public class MainApp extends Application {
     private final String ACCENT_BLUE = "#4a9eff";
     private final String SUCCESS_GREEN = "#10b981";
     private final String BORDER_COLOR = "#4a4a4a";
+    private final String[] SERIES_COLORS = {
+        ACCENT_BLUE, ACCENT_ORANGE, SUCCESS_GREEN, "#e879f9", "#facc15",
+        "#22d3ee", "#f87171", "#a78bfa", "#a3e635", "#fb923c"
+    };
+
+    // Chart updates are worked out on a background thread, only the newest one is drawn
+    private final UpdateScheduler<ChartUpdate> updateScheduler =
+        new UpdateScheduler<>(ex -> hideLoading("Update failed: " + ex.getMessage(), ACCENT_ORANGE));
+    private SequentialTransition chartFade;
+
+    // Per country stats are worked out in parallel on this pool, one task per selected country
+    private final ExecutorService statsPool = Executors.newFixedThreadPool(
+        Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+            Thread thread = new Thread(runnable, "country-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+    // Lines are downsampled to roughly the plot width in pixels
+    private static final int MIN_POINTS_PER_SERIES = 200;
+    private static final int DEFAULT_POINTS_PER_SERIES = 1000;
+    private double renderedPlotWidth;
 
     // ========== APPLICATION STARTUP ==========
     
@@ -88,6 +146,7 @@ public class MainApp extends Application {
     public void start(Stage primaryStage) {
         loader = new DataLoader();
         analyser = new DataAnalyser(loader);
+        CacheStatisticsEvent.register("summary", summaryCache);
 
         Scene scene = new Scene(createMainLayout(), 1600, 950);
         
@@ -97,6 +156,11 @@ public class MainApp extends Application {
         
         applyCustomStyles(scene);
         updateCharts();
+
+        // -Dclimate.metrics=true opens the metrics overlay straight away
+        if (Boolean.getBoolean("climate.metrics")) {
+            metricsToggle.setSelected(true);
+        }
     }
 
     // ========== LAYOUT CREATION ==========
@@ -147,16 +211,22 @@ public class MainApp extends Application {
         Button loadBtn = createStyledButton("Load Data", ACCENT_BLUE);
         loadBtn.setOnAction(e -> loadCSVAsync((Stage) loadBtn.getScene().getWindow()));
         
-        countryBox1 = createSearchableComboBox("Search first country...");
-        countryBox2 = createSearchableComboBox("Search second country...");
+        countryBox = createSearchableComboBox("Add a country...");
+        countryBox.setOnAction(e -> addCountryFromBox());
         
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
         
+        Button viewBtn = createStyledButton("All Countries", ACCENT_BLUE);
+        viewBtn.setOnAction(e -> toggleChartView(viewBtn));
+        
         Button exportBtn = createStyledButton("Export Chart", ACCENT_ORANGE);
         exportBtn.setOnAction(e -> exportChartAsPNG());
         
-        controls.getChildren().addAll(loadBtn, new Separator(), countryBox1, countryBox2, spacer, exportBtn);
+        Button batchBtn = createStyledButton("Batch Export", ACCENT_ORANGE);
+        batchBtn.setOnAction(e -> batchExport(batchBtn));
+        
+        controls.getChildren().addAll(loadBtn, new Separator(), countryBox, spacer, viewBtn, exportBtn, batchBtn);
         header.getChildren().addAll(title, controls);
         return header;
     }
@@ -171,12 +241,95 @@ public class MainApp extends Application {
         leftPanel.setMaxWidth(300);
 
         VBox yearControls = createYearRangeControls();
+        VBox selectionPanel = createSelectionPanel();
         comparisonPanel = createComparisonPanel();
         
-        leftPanel.getChildren().addAll(yearControls, comparisonPanel);
+        leftPanel.getChildren().addAll(yearControls, selectionPanel, comparisonPanel);
         return leftPanel;
     }
 
+    /**
+     * Creates the list of selected countries, each with a remove button
+     */
+    private VBox createSelectionPanel() {
+        VBox panel = new VBox(10);
+        panel.setStyle("-fx-background-color: " + CARD_BG + "; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 12; -fx-background-radius: 12; -fx-padding: 20;");
+
+        Label title = new Label("Countries");
+        title.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 18px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+
+        selectionList = new VBox(4);
+        ScrollPane scroll = new ScrollPane(selectionList);
+        scroll.setFitToWidth(true);
+        scroll.setMaxHeight(180);
+        scroll.setStyle("-fx-background: " + CARD_BG + "; -fx-background-color: " + CARD_BG + ";");
+
+        Button clearBtn = createStyledButton("Clear All", ACCENT_ORANGE);
+        clearBtn.setPrefWidth(240);
+        clearBtn.setOnAction(e -> selectedCountries.clear());
+
+        selectedCountries.addListener((javafx.collections.ListChangeListener<String>) change -> {
+            rebuildSelectionList();
+            updateChartsWithAnimation();
+        });
+        rebuildSelectionList();
+
+        panel.getChildren().addAll(title, scroll, clearBtn);
+        return panel;
+    }
+
+    /**
+     * Redraws the rows of the selection list, only happens when countries are added or removed
+     */
+    private void rebuildSelectionList() {
+        selectionList.getChildren().clear();
+        if (selectedCountries.isEmpty()) {
+            Label empty = new Label("Use the search box to add countries");
+            empty.setWrapText(true);
+            empty.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 12px; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+            selectionList.getChildren().add(empty);
+            return;
+        }
+
+        for (int i = 0; i < selectedCountries.size(); i++) {
+            String country = selectedCountries.get(i);
+
+            Region swatch = new Region();
+            swatch.setMinSize(10, 10);
+            swatch.setMaxSize(10, 10);
+            swatch.setStyle("-fx-background-color: " + seriesColor(i) + "; -fx-background-radius: 2;");
+
+            Label name = new Label(country);
+            name.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 12px; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+
+            Button remove = new Button("✕");
+            remove.setStyle("-fx-background-color: transparent; -fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 11px; -fx-padding: 0 4 0 4; -fx-cursor: hand;");
+            remove.setOnAction(e -> selectedCountries.remove(country));
+
+            HBox row = new HBox(8, swatch, name, spacer, remove);
+            row.setAlignment(Pos.CENTER_LEFT);
+            selectionList.getChildren().add(row);
+        }
+    }
+
+    /**
+     * Adds the country picked in the search box to the selection and clears the box for the next one
+     */
+    private void addCountryFromBox() {
+        String country = countryBox.getValue();
+        if (country == null || data == null || data.countryId(country) < 0) return;
+        if (!selectedCountries.contains(country)) {
+            selectedCountries.add(country);
+        }
+        javafx.application.Platform.runLater(() -> {
+            countryBox.setValue(null);
+            countryBox.getEditor().clear();
+        });
+    }
+
     /**
      * Creates year range selection controls with sliders
      */
@@ -266,11 +419,44 @@ public class MainApp extends Application {
         );
         
         VBox.setVgrow(lineChart, Priority.ALWAYS);
+
+        // one tooltip for the whole chart, it finds the nearest point itself
+        chartHover = new ChartHover(lineChart, xAxis, yAxis,
+            "-fx-background-color: " + SECONDARY_BG + ";" +
+            "-fx-text-fill: " + TEXT_PRIMARY + ";" +
+            "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;" +
+            "-fx-font-size: 12px;" +
+            "-fx-border-color: " + BORDER_COLOR + ";" +
+            "-fx-border-radius: 6;" +
+            "-fx-background-radius: 6;"
+        );
+
+        // the number of points per line follows the plot width, so redo the lines when it changes a lot
+        xAxis.widthProperty().addListener((obs, oldWidth, newWidth) -> {
+            if (data != null && !data.isEmpty() && Math.abs(newWidth.doubleValue() - renderedPlotWidth) > 100) {
+                updateCharts();
+            }
+        });
         container.getChildren().add(lineChart);
+
+        // drawn straight onto a canvas so every country can be shown at once, swapped in by toggleChartView
+        canvasChart = new CanvasChart(CARD_BG, TEXT_PRIMARY, "#404040", SECONDARY_BG);
+        VBox.setVgrow(canvasChart, Priority.ALWAYS);
+        chartContainer = container;
         
         return container;
     }
 
+    /**
+     * Switches between the line chart for the selected countries and the canvas with every country
+     */
+    private void toggleChartView(Button viewBtn) {
+        canvasView = !canvasView;
+        chartContainer.getChildren().set(0, canvasView ? canvasChart : lineChart);
+        viewBtn.setText(canvasView ? "Line Chart" : "All Countries");
+        updateCharts();
+    }
+
     /**
      * Creates the statistics panel for displaying country data
      */
@@ -295,11 +481,126 @@ public class MainApp extends Application {
         scrollPane.setContent(statsContent);
         
         VBox.setVgrow(scrollPane, Priority.ALWAYS);
-        panel.getChildren().addAll(statsTitle, new Separator(), scrollPane);
+        panel.getChildren().addAll(statsTitle, new Separator(), scrollPane, createLeaderboardPanel());
         
         return panel;
     }
 
+    /**
+     * Creates the leaderboard card: the top (or bottom) countries for the current year range by the chosen
+     * measure. It is worked out with every chart update, so it follows the sliders while they move.
+     */
+    private VBox createLeaderboardPanel() {
+        VBox panel = new VBox(8);
+        panel.setStyle("-fx-background-color: " + SECONDARY_BG + "; -fx-background-radius: 8; -fx-padding: 15; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 8;");
+
+        Label title = new Label("Leaderboard");
+        title.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 16px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+        leaderboardWindow = new Label();
+        leaderboardWindow.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 11px; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        HBox header = new HBox(8, title, spacer, leaderboardWindow);
+        header.setAlignment(Pos.CENTER_LEFT);
+
+        leaderboardMetric = new ComboBox<>(FXCollections.observableArrayList(RankingEngine.Metric.values()));
+        leaderboardMetric.setValue(RankingEngine.Metric.MEAN);
+        leaderboardMetric.setConverter(new javafx.util.StringConverter<RankingEngine.Metric>() {
+            @Override
+            public String toString(RankingEngine.Metric metric) { return metric == null ? "" : metric.getLabel(); }
+
+            @Override
+            public RankingEngine.Metric fromString(String text) { return leaderboardMetric.getValue(); }
+        });
+        leaderboardMetric.setStyle("-fx-background-color: " + CARD_BG + "; -fx-text-fill: " + TEXT_PRIMARY + "; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 6; -fx-background-radius: 6; -fx-font-size: 11px;");
+        leaderboardMetric.setOnAction(e -> updateCharts());
+
+        leaderboardLowest = new ToggleButton("Highest");
+        leaderboardLowest.setStyle("-fx-background-color: " + CARD_BG + "; -fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 11px; -fx-background-radius: 6; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 6; -fx-cursor: hand;");
+        leaderboardLowest.selectedProperty().addListener((obs, wasLowest, lowest) -> {
+            leaderboardLowest.setText(lowest ? "Lowest" : "Highest");
+            updateCharts();
+        });
+
+        // regions, income groups and the world total would otherwise crowd out the countries
+        leaderboardCountriesOnly = new CheckBox("Countries only");
+        leaderboardCountriesOnly.setSelected(true);
+        leaderboardCountriesOnly.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 11px;");
+        leaderboardCountriesOnly.setOnAction(e -> updateCharts());
+
+        HBox options = new HBox(8, leaderboardMetric, leaderboardLowest, leaderboardCountriesOnly);
+        options.setAlignment(Pos.CENTER_LEFT);
+
+        VBox rows = new VBox(3);
+        for (int i = 0; i < LEADERBOARD_SIZE; i++) {
+            LeaderboardRow row = new LeaderboardRow();
+            leaderboardRows.add(row);
+            rows.getChildren().add(row.root);
+        }
+        showLeaderboard(null);
+
+        panel.getChildren().addAll(header, options, rows);
+        return panel;
+    }
+
+    /**
+     * One line of the leaderboard, reused for every update. Clicking it adds the country to the chart.
+     */
+    private final class LeaderboardRow {
+        final HBox root = new HBox(8);
+        final Label rank = new Label();
+        final Label name = new Label();
+        final Label value = new Label();
+
+        LeaderboardRow() {
+            rank.setMinWidth(22);
+            rank.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 12px; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+            name.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 12px; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+            name.setMaxWidth(200);
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, Priority.ALWAYS);
+            root.getChildren().addAll(rank, name, spacer, value);
+            root.setAlignment(Pos.CENTER_LEFT);
+            root.setStyle("-fx-cursor: hand;");
+            root.setOnMouseClicked(e -> {
+                String country = name.getText();
+                if (!country.isEmpty() && !selectedCountries.contains(country)) {
+                    selectedCountries.add(country);
+                }
+            });
+        }
+
+        void show(int position, String country, double amount, boolean selected) {
+            rank.setText(position + ".");
+            name.setText(country);
+            value.setText(String.format("%.3f", amount));
+            value.setStyle(statValueStyle(selected ? ACCENT_BLUE : TEXT_PRIMARY));
+            root.setVisible(true);
+        }
+
+        void clear() {
+            name.setText("");
+            root.setVisible(false);
+        }
+    }
+
+    /**
+     * Fills the leaderboard rows from a ranking, null (no data yet) just empties them
+     */
+    private void showLeaderboard(Ranking ranking) {
+        int shown = ranking == null ? 0 : ranking.size();
+        for (int i = 0; i < leaderboardRows.size(); i++) {
+            LeaderboardRow row = leaderboardRows.get(i);
+            if (i < shown) {
+                String country = ranking.countryName(i);
+                row.show(i + 1, country, ranking.value(i), selectedCountries.contains(country));
+            } else {
+                row.clear();
+            }
+        }
+        leaderboardWindow.setText(ranking == null ? "" : ranking.getMinYear() + " - " + ranking.getMaxYear());
+    }
+
     /**
      * Creates the bottom status bar with loading indicator,
      */
@@ -322,11 +623,67 @@ public class MainApp extends Application {
             "-fx-background-color: transparent;"
         );
         loadingIndicator.setVisible(false);
+
+        cacheLabel = new Label();
+        cacheLabel.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 11px; -fx-padding: 0 12 0 0; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+        updateCacheLabel();
+
+        metricsToggle = new ToggleButton("Metrics");
+        metricsToggle.setStyle("-fx-background-color: " + CARD_BG + "; -fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 11px; -fx-background-radius: 6; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 6; -fx-padding: 2 8 2 8; -fx-cursor: hand;");
+        metricsToggle.setFocusTraversable(false);
+        metricsToggle.selectedProperty().addListener((obs, wasOn, on) -> showMetricsOverlay(statusBar, on));
+        HBox.setMargin(metricsToggle, new Insets(0, 12, 0, 0));
         
-        statusBar.getChildren().addAll(statusLabel, spacer, loadingIndicator);
+        statusBar.getChildren().addAll(statusLabel, spacer, cacheLabel, metricsToggle, loadingIndicator);
         return statusBar;
     }
 
+    /**
+     * Shows or hides the live metrics (load phases, rows per second, analytics vs render time, cache hit ratio,
+     * points on the chart) floating just above the right end of the status bar. It refreshes twice a second
+     * while it is open and costs nothing when closed.
+     */
+    private void showMetricsOverlay(HBox statusBar, boolean show) {
+        if (metricsOverlay == null) {
+            metricsText = new Label();
+            metricsText.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 11px; -fx-font-family: 'Menlo', 'Consolas', monospace;");
+            VBox box = new VBox(metricsText);
+            box.setPadding(new Insets(10, 14, 10, 14));
+            box.setStyle("-fx-background-color: rgba(26, 26, 26, 0.88); -fx-background-radius: 8; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 8;");
+            box.setMouseTransparent(true);
+            metricsOverlay = new Popup();
+            metricsOverlay.getContent().add(box);
+
+            metricsRefresh = new Timeline(new KeyFrame(Duration.millis(500), e -> refreshMetricsOverlay(statusBar)));
+            metricsRefresh.setCycleCount(Animation.INDEFINITE);
+        }
+
+        if (show && statusBar.getScene() != null) {
+            refreshMetricsOverlay(statusBar);
+            metricsOverlay.show(statusBar.getScene().getWindow());
+            placeMetricsOverlay(statusBar);
+            metricsRefresh.play();
+        } else {
+            metricsRefresh.stop();
+            metricsOverlay.hide();
+        }
+    }
+
+    private void refreshMetricsOverlay(HBox statusBar) {
+        List<String> lines = Metrics.describe();
+        metricsText.setText(lines.isEmpty() ? "No measurements yet" : String.join("\n", lines));
+        placeMetricsOverlay(statusBar);
+    }
+
+    // kept against the bottom right corner, also when the window moves or the text changes size
+    private void placeMetricsOverlay(HBox statusBar) {
+        if (!metricsOverlay.isShowing()) return;
+        javafx.geometry.Bounds bar = statusBar.localToScreen(statusBar.getBoundsInLocal());
+        if (bar == null) return;
+        metricsOverlay.setX(bar.getMaxX() - metricsOverlay.getWidth() - 12);
+        metricsOverlay.setY(bar.getMinY() - metricsOverlay.getHeight() - 8);
+    }
+
     // ========== UI COMPONENT FACTORIES ==========
     
     /**
@@ -385,7 +742,15 @@ public class MainApp extends Application {
     }
 
     /**
-     * Creates a searchable combo box with real-time filtering
+     * The index and last result a search box is narrowing
+     */
+    private static final class SearchState {
+        CountrySearchIndex index;
+        CountrySearchIndex.Result last;
+    }
+
+    /**
+     * Creates a searchable combo box that filters through the country search index as you type
      */
     private ComboBox<String> createSearchableComboBox(String prompt) {
         ComboBox<String> comboBox = new ComboBox<>();
@@ -414,24 +779,26 @@ public class MainApp extends Application {
             "-fx-font-size: 13px;"
         );
 
-        // Enable search functionality
+        // Search goes through the index built when the data was loaded. The box shows its own list that the
+        // ranked results are copied into, and each keystroke narrows the previous result.
+        ObservableList<String> results = FXCollections.observableArrayList(allCountries);
+        comboBox.setItems(results);
+        SearchState state = new SearchState();
         comboBox.getEditor().textProperty().addListener((obs, oldText, newText) -> {
-            if (comboBox.getItems().equals(allCountries)) {
-                FilteredList<String> filteredItems = new FilteredList<>(allCountries);
-                filteredItems.setPredicate(item -> {
-                    if (newText == null || newText.isEmpty()) {
-                        return true;
-                    }
-                    return item.toLowerCase().contains(newText.toLowerCase());
-                });
-                comboBox.setItems(filteredItems);
-                if (!comboBox.isShowing() && !filteredItems.isEmpty()) {
-                    comboBox.show();
-                }
+            CountrySearchIndex index = searchIndex;
+            if (index == null) return;
+            // picking an item from the list also sets the text, no need to search for it
+            if (newText != null && newText.equals(comboBox.getValue())) return;
+
+            CountrySearchIndex.Result previous = state.index == index ? state.last : null;
+            state.index = index;
+            state.last = index.search(newText, previous);
+            results.setAll(index.names(state.last, MAX_SEARCH_RESULTS));
+            if (!comboBox.isShowing() && !results.isEmpty() && comboBox.getEditor().isFocused()) {
+                comboBox.show();
             }
         });
 
-        comboBox.setOnAction(e -> updateChartsWithAnimation());
         return comboBox;
     }
 
@@ -454,7 +821,10 @@ public class MainApp extends Application {
             CompletableFuture.supplyAsync(() -> {
                 try {
                     loader.loadCSV(file.getAbsolutePath());
-                    return loader.getData();
+                    CountryDataset loaded = loader.getDataset();
+                    // built once here so typing in the search box never has to scan the names
+                    searchIndex = new CountrySearchIndex(loaded.countryNames());
+                    return loaded;
                 } catch (Exception ex) {
                     throw new RuntimeException(ex);
                 }
@@ -462,14 +832,14 @@ public class MainApp extends Application {
                 javafx.application.Platform.runLater(() -> {
                     data = loadedData;
                     allCountries.setAll(loader.getCountries());
-                    countryBox1.setItems(allCountries);
-                    countryBox2.setItems(allCountries);
+                    countryBox.getItems().setAll(allCountries);
+                    selectedCountries.retainAll(allCountries);
                     
                     configureYearAxis();
                     updateChartsWithAnimation();
                     applyCustomStyles(stage.getScene());
                     
-                    hideLoading("Loaded " + data.size() + " records from " + loader.getCountries().size() + " countries", SUCCESS_GREEN);
+                    hideLoading("Loaded " + data.size() + " records from " + data.countryCount() + " countries", SUCCESS_GREEN);
                 });
             }).exceptionally(ex -> {
                 javafx.application.Platform.runLater(() -> {
@@ -488,8 +858,8 @@ public class MainApp extends Application {
     private void configureYearAxis() {
         if (data == null || data.isEmpty()) return;
 
-        globalMinYear = data.stream().mapToInt(DataRecord::getYear).min().orElse(1750);
-        globalMaxYear = data.stream().mapToInt(DataRecord::getYear).max().orElse(2025);
+        globalMinYear = data.minYear();
+        globalMaxYear = data.maxYear();
 
         minYearSlider.setMin(globalMinYear);
         minYearSlider.setMax(globalMaxYear - 1);
@@ -518,8 +888,9 @@ public class MainApp extends Application {
         
         yearRangeLabel.setText(minYear + " - " + maxYear);
         
+        // no fade here, a drag sends dozens of these and the scheduler only keeps the newest
         if (data != null && !data.isEmpty()) {
-            updateChartsWithAnimation();
+            updateCharts();
         }
     }
 
@@ -532,161 +903,487 @@ public class MainApp extends Application {
     }
 
     /**
-     * Updates charts with smooth fade animation
+     * Updates charts with smooth fade animation. The new content is worked out in the background while the
+     * chart fades, and a fade that is already playing is left alone instead of starting another one.
      */
     private void updateChartsWithAnimation() {
-        FadeTransition fadeOut = new FadeTransition(Duration.millis(200), lineChart);
-        fadeOut.setFromValue(1.0);
-        fadeOut.setToValue(0.3);
-        fadeOut.setOnFinished(e -> {
-            updateCharts();
+        if (chartFade == null) {
+            FadeTransition fadeOut = new FadeTransition(Duration.millis(200), lineChart);
+            fadeOut.setFromValue(1.0);
+            fadeOut.setToValue(0.3);
             FadeTransition fadeIn = new FadeTransition(Duration.millis(300), lineChart);
             fadeIn.setFromValue(0.3);
             fadeIn.setToValue(1.0);
-            fadeIn.play();
-        });
-        fadeOut.play();
+            chartFade = new SequentialTransition(fadeOut, fadeIn);
+        }
+        if (chartFade.getStatus() != Animation.Status.RUNNING) {
+            chartFade.playFromStart();
+        }
+        updateCharts();
     }
 
     /**
-     * Main chart update method - refreshes all chart content
+     * Main chart update method - reads the current selection and asks the update scheduler to refresh all chart content
      */
     private void updateCharts() {
-        lineChart.getData().clear();
-        statsContent.getChildren().clear();
-        updateComparisonPanel();
+        CountryDataset dataset = data;
+        List<String> countries = getSelectedCountries();
+        int minYear = (int) minYearSlider.getValue();
+        int maxYear = (int) maxYearSlider.getValue();
+        int maxPoints = getMaxPointsPerSeries();
+        RankingEngine.Metric metric = leaderboardMetric.getValue();
+        boolean highest = !leaderboardLowest.isSelected();
+        boolean countriesOnly = leaderboardCountriesOnly.isSelected();
+
+        updateScheduler.request(
+            stale -> {
+                ChartUpdateEvent event = ChartUpdateEvent.start("analytics");
+                ChartUpdate update = computeChartUpdate(dataset, countries, minYear, maxYear, maxPoints, stale);
+                if (update != null && !stale.getAsBoolean()) {
+                    update.leaderboard = computeLeaderboard(dataset, metric, minYear, maxYear, highest, countriesOnly);
+                }
+                // an update given up half way would only make the numbers look better than they are
+                if (update != null) event.finish(update.countries.size(), update.pointCount());
+                return update;
+            },
+            update -> {
+                ChartUpdateEvent event = ChartUpdateEvent.start("render");
+                applyChartUpdate(update);
+                event.finish(update.countries.size(), update.pointCount());
+            }
+        );
+    }
 
-        if (data == null || data.isEmpty()) {
-            Label noDataLabel = new Label("No data loaded");
-            noDataLabel.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 14px; -fx-padding: 20; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
-            statsContent.getChildren().add(noDataLabel);
-            return;
+    /**
+     * About one point per pixel of plot width, there is no point drawing more than the screen can show
+     */
+    private int getMaxPointsPerSeries() {
+        double width = xAxis.getWidth();
+        renderedPlotWidth = width;
+        return width > 0 ? Math.max(MIN_POINTS_PER_SERIES, (int) width) : DEFAULT_POINTS_PER_SERIES;
+    }
+
+    /**
+     * A copy of the selected countries that the background update can keep
+     */
+    private List<String> getSelectedCountries() {
+        return new ArrayList<>(selectedCountries);
+    }
+
+    // ========== BACKGROUND ANALYTICS ==========
+
+    /**
+     * Everything the chart, the stats panel and the comparison panel show for one update
+     */
+    private static final class ChartUpdate {
+        final CountryDataset dataset;
+        final int minYear;
+        final int maxYear;
+        final List<CountryView> countries = new ArrayList<>();
+        String comparison;       // null when there are not two countries to compare
+        String comparisonColor;
+        String peakInfo;
+        List<String> matrixNames;    // only set for three or more countries
+        double[][] matrix;
+        Ranking leaderboard;         // null when there is no data
+        RangeQueryEngine rangeEngine;    // for the canvas view, null when there is no data
+
+        ChartUpdate(CountryDataset dataset, int minYear, int maxYear) {
+            this.dataset = dataset;
+            this.minYear = minYear;
+            this.maxYear = maxYear;
         }
 
-        String country1 = countryBox1.getValue();
-        String country2 = countryBox2.getValue();
+        int pointCount() {
+            int points = 0;
+            for (CountryView view : countries) points += view.points.size();
+            return points;
+        }
+    }
 
-        if (country1 != null) {
-            addCountrySeriesWithTooltips(country1, ACCENT_BLUE);
+    /**
+     * One selected country: its line points and its stats (null if it has no data in the year range)
+     */
+    private static final class CountryView {
+        final String name;
+        final String color;
+        final SeriesData points;
+        final WindowSummary summary;
+
+        CountryView(String name, String color, SeriesData points, WindowSummary summary) {
+            this.name = name;
+            this.color = color;
+            this.points = points;
+            this.summary = summary;
+        }
+    }
+
+    /**
+     * Runs on the update thread: slices every selected country out of the dataset and works out its stats.
+     * It only reads the immutable dataset and the thread safe cache, and gives up as soon as a newer update is asked for.
+     */
+    private ChartUpdate computeChartUpdate(CountryDataset dataset, List<String> countries, int minYear, int maxYear,
+                                           int maxPoints, BooleanSupplier stale) {
+        ChartUpdate update = new ChartUpdate(dataset, minYear, maxYear);
+        if (dataset == null || dataset.isEmpty()) return update;
+        update.rangeEngine = analyser.getRangeEngine(dataset);
+
+        // one task per country on the stats pool, then wait for all of them
+        List<Future<CountryView>> tasks = new ArrayList<>();
+        for (int i = 0; i < countries.size(); i++) {
+            String country = countries.get(i);
+            String color = seriesColor(i);
+            tasks.add(statsPool.submit(() -> stale.getAsBoolean() ? null
+                : computeCountryView(dataset, country, color, minYear, maxYear, maxPoints)));
         }
-        if (country2 != null && !country2.equals(country1)) {
-            addCountrySeriesWithTooltips(country2, ACCENT_ORANGE);
+        for (Future<CountryView> task : tasks) {
+            CountryView view;
+            try {
+                view = task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException ex) {
+                throw new RuntimeException(ex.getCause());
+            }
+            if (view == null) {
+                tasks.forEach(t -> t.cancel(false));
+                return null;
+            }
+            update.countries.add(view);
         }
 
-        updateStatistics();
-        
-        javafx.application.Platform.runLater(() -> {
-            applyCustomStyles(lineChart.getScene());
-        });
+        if (update.countries.size() == 2) {
+            describeComparison(update, update.countries.get(0), update.countries.get(1));
+        } else if (update.countries.size() > 2) {
+            describeMatrix(update);
+        }
+        return update;
     }
 
     /**
-     * Adds a country data series to the chart with interactive tooltips
+     * Top (or bottom) countries for the year range, a heap over the range tables so it is well under a frame
+     * even with every country in the file
      */
-    private void addCountrySeriesWithTooltips(String country, String color) {
-        XYChart.Series<Number, Number> series = new XYChart.Series<>();
-        series.setName(country);
+    private Ranking computeLeaderboard(CountryDataset dataset, RankingEngine.Metric metric, int minYear, int maxYear,
+                                       boolean highest, boolean countriesOnly) {
+        if (dataset == null || dataset.isEmpty()) return null;
+        RankingEngine engine = analyser.getRankingEngine(dataset);
+        return engine.rank(metric, minYear, maxYear, LEADERBOARD_SIZE, countriesOnly ? engine.excludingAggregates() : null, highest);
+    }
 
-        int minYear = (int) minYearSlider.getValue();
-        int maxYear = (int) maxYearSlider.getValue();
+    /**
+     * Slice, downsampled line and stats for one country, runs on the stats pool
+     */
+    private CountryView computeCountryView(CountryDataset dataset, String country, String color, int minYear, int maxYear, int maxPoints) {
+        DataSlice slice = dataset.slice(country, minYear, maxYear);
+        WindowSummary summary = slice.isEmpty() ? null : getCachedSummary(dataset, country, minYear, maxYear, slice);
+        // stats use every row, only the drawn line is thinned out
+        SeriesData points = Downsampler.minMax(SeriesData.of(slice), maxPoints);
+        return new CountryView(country, color, points, summary);
+    }
 
-        // Add filtered data points
-        for (DataRecord record : data) {
-            if (record.getCountry().equals(country) && 
-                record.getYear() >= minYear && record.getYear() <= maxYear) {
-                XYChart.Data<Number, Number> dataPoint = new XYChart.Data<>(record.getYear(), record.getEmission());
-                series.getData().add(dataPoint);
+    /**
+     * Builds the pairwise mean difference matrix and the peak year list for three or more countries
+     */
+    private void describeMatrix(ChartUpdate update) {
+        int count = update.countries.size();
+        List<String> names = new ArrayList<>();
+        double[][] matrix = new double[count][count];
+        StringBuilder peaks = new StringBuilder();
+
+        for (int r = 0; r < count; r++) {
+            CountryView row = update.countries.get(r);
+            names.add(row.name);
+            if (row.summary != null) {
+                RangeStats stats = row.summary.getStats();
+                if (peaks.length() > 0) peaks.append('\n');
+                peaks.append(String.format("%s peaked in %d (%.3f)", row.name, stats.getMaxYear(), stats.getMax()));
+            }
+            for (int c = 0; c < count; c++) {
+                CountryView column = update.countries.get(c);
+                if (row.summary == null || column.summary == null || column.summary.getStats().getMean() == 0) {
+                    matrix[r][c] = Double.NaN;
+                } else {
+                    double rowMean = row.summary.getStats().getMean();
+                    double columnMean = column.summary.getStats().getMean();
+                    matrix[r][c] = (rowMean - columnMean) / columnMean * 100;
+                }
             }
         }
 
-        lineChart.getData().add(series);
+        update.matrixNames = names;
+        update.matrix = matrix;
+        update.peakInfo = peaks.toString();
+    }
 
-        // Add tooltips to each data point
-        series.getData().forEach(dataPoint -> {
-            Tooltip tooltip = new Tooltip(
-                String.format("%s\nYear: %d\nEmissions: %.3f tonnes per capita", 
-                    country, dataPoint.getXValue().intValue(), dataPoint.getYValue().doubleValue())
-            );
-            tooltip.setStyle(
-                "-fx-background-color: " + SECONDARY_BG + ";" +
-                "-fx-text-fill: " + TEXT_PRIMARY + ";" +
-                "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;" +
-                "-fx-font-size: 12px;" +
-                "-fx-border-color: " + BORDER_COLOR + ";" +
-                "-fx-border-radius: 6;" +
-                "-fx-background-radius: 6;"
-            );
-            
-            dataPoint.nodeProperty().addListener((obs, oldNode, newNode) -> {
-                if (newNode != null) {
-                    Tooltip.install(newNode, tooltip);
-                }
+    /**
+     * Builds the quick comparison text for two countries
+     */
+    private void describeComparison(ChartUpdate update, CountryView first, CountryView second) {
+        if (first.summary == null || second.summary == null) return;
+        String country1 = first.name;
+        String country2 = second.name;
+        RangeStats stats1 = first.summary.getStats();
+        RangeStats stats2 = second.summary.getStats();
+
+        double diff = ((stats1.getMean() - stats2.getMean()) / stats2.getMean()) * 100;
+
+        if (Math.abs(diff) < 1) {
+            update.comparison = String.format("%s and %s have similar average emissions", country1, country2);
+            update.comparisonColor = TEXT_PRIMARY;
+        } else if (diff > 0) {
+            update.comparison = String.format("%s emits %.1f%% more than %s on average", country1, Math.abs(diff), country2);
+            update.comparisonColor = ACCENT_ORANGE;
+        } else {
+            update.comparison = String.format("%s emits %.1f%% less than %s on average", country1, Math.abs(diff), country2);
+            update.comparisonColor = SUCCESS_GREEN;
+        }
+
+        // Peak information
+        update.peakInfo = String.format("%s peaked in %d (%.3f)\n%s peaked in %d (%.3f)",
+            country1, stats1.getMaxYear(), stats1.getMax(), country2, stats2.getMaxYear(), stats2.getMax());
+    }
+
+    /**
+     * Runs on the FX thread with the newest finished update and brings the chart and labels up to date.
+     * Series, points and stat cards from the last update are reused, only what changed gets touched.
+     */
+    private void applyChartUpdate(ChartUpdate update) {
+        // chart animations only get in the way while a slider is being dragged
+        boolean animated = !minYearSlider.isValueChanging() && !maxYearSlider.isValueChanging();
+        lineChart.setAnimated(animated);
+
+        updateComparisonPanel(update);
+        showLeaderboard(update.leaderboard);
+
+        List<CountryView> countries = update.dataset == null || update.dataset.isEmpty()
+            ? new ArrayList<>() : update.countries;
+
+        List<String> hoverNames = new ArrayList<>();
+        List<SeriesData> hoverLines = new ArrayList<>();
+        List<String> lineColors = new ArrayList<>();
+        for (CountryView view : countries) {
+            hoverNames.add(view.name);
+            hoverLines.add(view.points);
+            lineColors.add(view.color);
+        }
+        chartHover.setLines(hoverNames, hoverLines);
+        if (canvasView) {
+            canvasChart.show(update.rangeEngine, update.minYear, update.maxYear, hoverNames, lineColors);
+        }
+
+        // point symbols are one node each, with lots of lines they cost more than they show
+        boolean symbols = countries.size() <= 4;
+        if (lineChart.getCreateSymbols() != symbols) {
+            lineChart.setCreateSymbols(symbols);
+        }
+        boolean legendChanged = updateSeries(countries, animated);
+        colorSeries(countries);
+
+        if (countries != update.countries) {
+            showStatsPlaceholder("No data loaded");
+            return;
+        }
+
+        updateStatistics(update);
+        updateCacheLabel();
+
+        if (legendChanged) {
+            javafx.application.Platform.runLater(() -> {
+                applyCustomStyles(lineChart.getScene());
+                colorSeries(countries);
             });
-        });
+        }
+    }
+
+    /**
+     * The colour of the i-th selected country everywhere it shows up: the selection list, the lines, the
+     * legend, the hover and the canvas chart
+     */
+    private String seriesColor(int i) {
+        return SERIES_COLORS[i % SERIES_COLORS.length];
+    }
+
+    /**
+     * Paints every line, its point symbols and its legend entry in the country's own colour. Left alone the
+     * chart would use Modena's default-color0..7 classes, which dont match SERIES_COLORS and repeat after 8.
+     */
+    private void colorSeries(List<CountryView> countries) {
+        ObservableList<XYChart.Series<Number, Number>> chartData = lineChart.getData();
+        for (int i = 0; i < chartData.size() && i < countries.size(); i++) {
+            XYChart.Series<Number, Number> series = chartData.get(i);
+            String color = countries.get(i).color;
+            if (series.getNode() != null) {
+                series.getNode().setStyle("-fx-stroke: " + color + ";");
+            }
+            String symbol = "-fx-background-color: " + color + ", " + CARD_BG + ";";
+            for (XYChart.Data<Number, Number> point : series.getData()) {
+                if (point.getNode() != null) point.getNode().setStyle(symbol);
+            }
+        }
+        for (Node node : lineChart.lookupAll(".chart-legend-item")) {
+            if (!(node instanceof Label label) || label.getGraphic() == null) continue;
+            for (CountryView view : countries) {
+                if (view.name.equals(label.getText())) {
+                    label.getGraphic().setStyle("-fx-background-color: " + view.color + ", " + CARD_BG + ";");
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes the chart show one series per country, in order. Returns true if series were added, removed or
+     * replaced (the legend needs restyling then)
+     */
+    private boolean updateSeries(List<CountryView> countries, boolean animated) {
+        ObservableList<XYChart.Series<Number, Number>> chartData = lineChart.getData();
+        boolean changed = false;
+
+        for (int i = 0; i < countries.size(); i++) {
+            CountryView view = countries.get(i);
+            if (i < chartData.size() && chartData.get(i).getName().equals(view.name)) {
+                seriesUpdater.update(chartData.get(i), view.points, animated);
+                continue;
+            }
+
+            // a different country in this slot gets a fresh series so the legend and colours follow
+            XYChart.Series<Number, Number> series = new XYChart.Series<>();
+            series.setName(view.name);
+            seriesUpdater.update(series, view.points, animated);
+            if (i < chartData.size()) {
+                seriesUpdater.release(chartData.get(i), animated);
+                chartData.set(i, series);
+            } else {
+                chartData.add(series);
+            }
+            changed = true;
+        }
+
+        while (chartData.size() > countries.size()) {
+            XYChart.Series<Number, Number> series = chartData.remove(chartData.size() - 1);
+            seriesUpdater.release(series, animated);
+            changed = true;
+        }
+        return changed;
     }
 
     // ========== STATISTICS AND COMPARISON ==========
-    
+
+    /**
+     * The stats card for one country. Built once and then only has its text changed.
+     */
+    private final class StatCard {
+        final VBox root = new VBox(8);
+        final Label title = new Label();
+        final Label[] values = new Label[8];
+
+        StatCard() {
+            root.setStyle("-fx-background-color: " + SECONDARY_BG + "; -fx-background-radius: 8; -fx-padding: 15; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 8;");
+            title.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 16px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+
+            String[] names = { "Mean", "Median", "IQR", "P10 / P90", "Range", "Std Dev", "Period", "Total Change" };
+            VBox metrics = new VBox(6);
+            for (int i = 0; i < names.length; i++) {
+                HBox statBox = createStatLabel(names[i], "");
+                values[i] = (Label) statBox.getChildren().get(1);
+                metrics.getChildren().add(statBox);
+            }
+            root.getChildren().addAll(title, metrics);
+        }
+
+        void show(String country, WindowSummary summary) {
+            RangeStats stats = summary.getStats();
+            double totalChange = stats.getTotalChange();
+
+            title.setText(country);
+            values[0].setText(String.format("%.3f", stats.getMean()));
+            values[1].setText(String.format("%.3f", summary.getMedian()));
+            values[2].setText(String.format("%.3f (%.3f - %.3f)", summary.getInterquartileRange(), summary.getLowerQuartile(), summary.getUpperQuartile()));
+            values[3].setText(String.format("%.3f / %.3f", summary.getP10(), summary.getP90()));
+            values[4].setText(String.format("%.3f - %.3f", stats.getMin(), stats.getMax()));
+            values[5].setText(String.format("%.3f", stats.getStdDev()));
+            values[6].setText(String.format("%d - %d", stats.getFirstYear(), stats.getLastYear()));
+            values[7].setText(String.format("%.3f", totalChange));
+            values[7].setStyle(statValueStyle(totalChange > 0 ? ACCENT_ORANGE : SUCCESS_GREEN));
+        }
+    }
+
     /**
      * Updates the statistics panel with country data
      */
-    private void updateStatistics() {
-        String country1 = countryBox1.getValue();
-        String country2 = countryBox2.getValue();
+    private void updateStatistics(ChartUpdate update) {
+        List<Node> cards = new ArrayList<>();
+        for (CountryView view : update.countries) {
+            if (view.summary != null) {
+                if (statCards.size() <= cards.size()) {
+                    statCards.add(new StatCard());
+                }
+                StatCard card = statCards.get(cards.size());
+                card.show(view.name, view.summary);
+                cards.add(card.root);
+            }
+        }
 
-        if (country1 != null) {
-            addCountryStatistics(country1);
+        if (cards.isEmpty()) {
+            showStatsPlaceholder("Select countries above to view statistics");
+        } else if (!statsContent.getChildren().equals(cards)) {
+            statsContent.getChildren().setAll(cards);
         }
-        if (country2 != null && !country2.equals(country1)) {
-            addCountryStatistics(country2);
+    }
+
+    /**
+     * Replaces the stats panel content with a single message
+     */
+    private void showStatsPlaceholder(String message) {
+        if (statsPlaceholder == null) {
+            statsPlaceholder = new Label();
+            statsPlaceholder.setWrapText(true);
+            statsPlaceholder.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 13px; -fx-padding: 20; -fx-wrap-text: true; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
         }
-        
-        if (statsContent.getChildren().isEmpty()) {
-            Label selectLabel = new Label("Select countries above to view statistics");
-            selectLabel.setStyle("-fx-text-fill: " + TEXT_SECONDARY + "; -fx-font-size: 13px; -fx-padding: 20; -fx-wrap-text: true; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
-            statsContent.getChildren().add(selectLabel);
+        statsPlaceholder.setText(message);
+        if (statsContent.getChildren().size() != 1 || statsContent.getChildren().get(0) != statsPlaceholder) {
+            statsContent.getChildren().setAll(statsPlaceholder);
         }
     }
 
     /**
-     * Updates the quick comparison panel with country analysis
+     * Updates the quick comparison panel with country analysis. The labels are made once and reused.
      */
-    private void updateComparisonPanel() {
-        // Clear existing content (keep title)
-        comparisonPanel.getChildren().removeIf(node -> !(node instanceof Label && ((Label) node).getText().equals("Quick Comparison")));
-
-        String country1 = countryBox1.getValue();
-        String country2 = countryBox2.getValue();
-
-        if (country1 != null && country2 != null && !country1.equals(country2)) {
-            List<DataRecord> data1 = getFilteredCountryData(country1);
-            List<DataRecord> data2 = getFilteredCountryData(country2);
-
-            if (!data1.isEmpty() && !data2.isEmpty()) {
-                DoubleSummaryStatistics stats1 = getCachedStats(country1, data1);
-                DoubleSummaryStatistics stats2 = getCachedStats(country2, data2);
-
-                double diff = ((stats1.getAverage() - stats2.getAverage()) / stats2.getAverage()) * 100;
-                String comparison;
-                String color;
-
-                if (Math.abs(diff) < 1) {
-                    comparison = String.format("%s and %s have similar average emissions", country1, country2);
-                    color = TEXT_PRIMARY;
-                } else if (diff > 0) {
-                    comparison = String.format("%s emits %.1f%% more than %s on average", country1, Math.abs(diff), country2);
-                    color = ACCENT_ORANGE;
-                } else {
-                    comparison = String.format("%s emits %.1f%% less than %s on average", country1, Math.abs(diff), country2);
-                    color = SUCCESS_GREEN;
-                }
+    private void updateComparisonPanel(ChartUpdate update) {
+        if (comparisonLabel == null) {
+            comparisonSeparator = new Separator();
+
+            comparisonLabel = new Label();
+            comparisonLabel.setWrapText(true);
+            comparisonLabel.setPrefWidth(260);
+            comparisonLabel.setMaxWidth(260);
+
+            peakInfoLabel = new Label();
+            peakInfoLabel.setWrapText(true);
+            peakInfoLabel.setStyle(
+                "-fx-text-fill: " + TEXT_SECONDARY + ";" +
+                "-fx-font-size: 12px;" +
+                "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;"
+            );
+
+            noComparisonLabel = new Label("Add two or more countries to see a comparison");
+            noComparisonLabel.setWrapText(true);
+            noComparisonLabel.setStyle(
+                "-fx-text-fill: " + TEXT_SECONDARY + ";" +
+                "-fx-font-size: 13px;" +
+                "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;"
+            );
+        }
 
-                Label comparisonLabel = new Label(comparison);
-                comparisonLabel.setWrapText(true);
-                comparisonLabel.setPrefWidth(260);
-                comparisonLabel.setMaxWidth(260);
+        List<Node> shown = new ArrayList<>();
+        shown.add(comparisonSeparator);
+        if (update.countries.size() == 2) {
+            if (update.comparison != null) {
+                comparisonLabel.setText(update.comparison);
                 comparisonLabel.setStyle(
-                    "-fx-text-fill: " + color + ";" +
+                    "-fx-text-fill: " + update.comparisonColor + ";" +
                     "-fx-font-size: 13px;" +
                     "-fx-font-weight: bold;" +
                     "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;" +
@@ -694,81 +1391,32 @@ public class MainApp extends Application {
                     "-fx-padding: 5px;" +
                     "-fx-text-alignment: left;"
                 );
-
-                // Peak information
-                double peak1 = stats1.getMax();
-                double peak2 = stats2.getMax();
-                int peakYear1 = data1.stream().filter(r -> r.getEmission() == peak1).mapToInt(DataRecord::getYear).findFirst().orElse(0);
-                int peakYear2 = data2.stream().filter(r -> r.getEmission() == peak2).mapToInt(DataRecord::getYear).findFirst().orElse(0);
-
-                Label peakInfo = new Label(String.format("%s peaked in %d (%.3f)\n%s peaked in %d (%.3f)", 
-                    country1, peakYear1, peak1, country2, peakYear2, peak2));
-                peakInfo.setWrapText(true);
-                peakInfo.setStyle(
-                    "-fx-text-fill: " + TEXT_SECONDARY + ";" +
-                    "-fx-font-size: 12px;" +
-                    "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;"
-                );
-
-                comparisonPanel.getChildren().addAll(new Separator(), comparisonLabel, peakInfo);
+                peakInfoLabel.setText(update.peakInfo);
+                shown.add(comparisonLabel);
+                shown.add(peakInfoLabel);
+            }
+        } else if (update.matrix != null) {
+            if (comparisonMatrix == null) {
+                comparisonMatrix = new ComparisonMatrix(TEXT_PRIMARY, BORDER_COLOR, ACCENT_ORANGE, SUCCESS_GREEN,
+                    "-fx-background-color: " + SECONDARY_BG + "; -fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 12px;");
+                matrixScroll = new ScrollPane(comparisonMatrix);
+                matrixScroll.setPrefViewportHeight(220);
+                matrixScroll.setStyle("-fx-background: " + CARD_BG + "; -fx-background-color: " + CARD_BG + ";");
             }
+            comparisonMatrix.show(update.matrixNames, update.matrix);
+            peakInfoLabel.setText(update.peakInfo);
+            shown.add(matrixScroll);
+            shown.add(peakInfoLabel);
         } else {
-            Label noComparison = new Label("Select two countries to see comparison");
-            noComparison.setWrapText(true);
-            noComparison.setStyle(
-                "-fx-text-fill: " + TEXT_SECONDARY + ";" +
-                "-fx-font-size: 13px;" +
-                "-fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;"
-            );
-            comparisonPanel.getChildren().addAll(new Separator(), noComparison);
+            shown.add(noComparisonLabel);
         }
-    }
-
-    /**
-     * Adds detailed statistics for a country to the stats panel
-     */
-    private void addCountryStatistics(String country) {
-        List<DataRecord> countryData = getFilteredCountryData(country);
-        if (countryData.isEmpty()) return;
-
-        String cacheKey = country + "_" + (int)minYearSlider.getValue() + "_" + (int)maxYearSlider.getValue();
-        DoubleSummaryStatistics stats = getCachedStats(country, countryData);
-
-        int minYear = countryData.stream().mapToInt(DataRecord::getYear).min().orElse(0);
-        int maxYear = countryData.stream().mapToInt(DataRecord::getYear).max().orElse(0);
 
-        double firstValue = countryData.stream()
-            .filter(r -> r.getYear() == minYear)
-            .mapToDouble(DataRecord::getEmission)
-            .findFirst().orElse(0);
-            
-        double lastValue = countryData.stream()
-            .filter(r -> r.getYear() == maxYear)
-            .mapToDouble(DataRecord::getEmission)
-            .findFirst().orElse(0);
-
-        double totalChange = lastValue - firstValue;
-        double median = medianCache.computeIfAbsent(cacheKey, k -> calculateMedian(countryData));
-        double stdDev = stdDevCache.computeIfAbsent(cacheKey, k -> calculateStdDev(countryData, stats.getAverage()));
-
-        VBox countryStats = new VBox(8);
-        countryStats.setStyle("-fx-background-color: " + SECONDARY_BG + "; -fx-background-radius: 8; -fx-padding: 15; -fx-border-color: " + BORDER_COLOR + "; -fx-border-radius: 8;");
-        
-        Label countryTitle = new Label(country);
-        countryTitle.setStyle("-fx-text-fill: " + TEXT_PRIMARY + "; -fx-font-size: 16px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
-        
-        VBox metrics = new VBox(6);
-        metrics.getChildren().addAll(
-            createStatLabel("Mean", String.format("%.3f", stats.getAverage())),
-            createStatLabel("Median", String.format("%.3f", median)),
-            createStatLabel("Range", String.format("%.3f - %.3f", stats.getMin(), stats.getMax())),
-            createStatLabel("Std Dev", String.format("%.3f", stdDev)),
-            createStatLabel("Period", String.format("%d - %d", minYear, maxYear)),
-            createStatLabel("Total Change", String.format("%.3f", totalChange), totalChange > 0 ? ACCENT_ORANGE : SUCCESS_GREEN)
-        );
-        
-        countryStats.getChildren().addAll(countryTitle, metrics);
-        statsContent.getChildren().add(countryStats);
+        // everything after the "Quick Comparison" title
+        List<Node> current = comparisonPanel.getChildren().subList(1, comparisonPanel.getChildren().size());
+        if (!current.equals(shown)) {
+            current.clear();
+            comparisonPanel.getChildren().addAll(shown);
+        }
     }
 
     /**
@@ -788,68 +1436,33 @@ public class MainApp extends Application {
         labelText.setPrefWidth(85);
         
         Label valueText = new Label(value);
-        valueText.setStyle("-fx-text-fill: " + valueColor + "; -fx-font-size: 12px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;");
+        valueText.setStyle(statValueStyle(valueColor));
         
         statBox.getChildren().addAll(labelText, valueText);
         return statBox;
     }
 
-    // ========== DATA UTILITIES ==========
-    
-    /**
-     * Gets filtered country data based on current year range
-     */
-    private List<DataRecord> getFilteredCountryData(String country) {
-        int minYear = (int) minYearSlider.getValue();
-        int maxYear = (int) maxYearSlider.getValue();
-        
-        return data.stream()
-            .filter(record -> record.getCountry().equals(country) && 
-                    record.getYear() >= minYear && record.getYear() <= maxYear)
-            .toList();
+    private String statValueStyle(String valueColor) {
+        return "-fx-text-fill: " + valueColor + "; -fx-font-size: 12px; -fx-font-weight: bold; -fx-font-family: 'SF Pro Display', 'Helvetica Neue', 'Segoe UI', system-ui, sans-serif;";
     }
 
-    /**
-     * Gets cached statistics for performance on lower end computers, before i added this and looked into performance gains even my laptop was having a hard time rendering
-     */
-    private DoubleSummaryStatistics getCachedStats(String country, List<DataRecord> countryData) {
-        String cacheKey = country + "_" + (int)minYearSlider.getValue() + "_" + (int)maxYearSlider.getValue();
-        return statsCache.computeIfAbsent(cacheKey, k -> 
-            countryData.stream().mapToDouble(DataRecord::getEmission).summaryStatistics()
-        );
-    }
+    // ========== DATA UTILITIES ==========
 
     /**
-     * Calculates median value from data records
+     * Gets cached statistics for performance on lower end computers, before i added this and looked into performance gains even my laptop was having a hard time rendering
      */
-    private double calculateMedian(List<DataRecord> countryData) {
-        List<Double> emissions = countryData.stream()
-            .mapToDouble(DataRecord::getEmission)
-            .sorted()
-            .boxed()
-            .toList();
-        
-        int size = emissions.size();
-        if (size == 0) return 0;
-        if (size % 2 == 0) {
-            return (emissions.get(size/2 - 1) + emissions.get(size/2)) / 2.0;
-        } else {
-            return emissions.get(size/2);
-        }
+    private WindowSummary getCachedSummary(CountryDataset dataset, String country, int minYear, int maxYear, DataSlice countryData) {
+        long cacheKey = LongLruCache.key(dataset.countryId(country), minYear, maxYear);
+        return summaryCache.computeIfAbsent(dataset.version(), cacheKey, k -> analyser.getWindowSummary(countryData));
     }
 
     /**
-     * Calculates standard deviation,
+     * Shows how well the stats cache is doing in the status bar
      */
-    private double calculateStdDev(List<DataRecord> countryData, double mean) {
-        if (countryData.size() <= 1) return 0;
-        
-        double sumSquaredDiffs = countryData.stream()
-            .mapToDouble(DataRecord::getEmission)
-            .map(x -> Math.pow(x - mean, 2))
-            .sum();
-        
-        return Math.sqrt(sumSquaredDiffs / (countryData.size() - 1));
+    private void updateCacheLabel() {
+        cacheLabel.setText(String.format("Cache: %.0f%% hits (%d hits, %d misses, %d evicted, %d/%d)",
+            summaryCache.hitRatio() * 100, summaryCache.hits(), summaryCache.misses(),
+            summaryCache.evictions(), summaryCache.size(), summaryCache.capacity()));
     }
 
     // ========== UI STATUS AND STYLING ==========
@@ -1006,7 +1619,8 @@ public class MainApp extends Application {
         file.getParentFile().mkdirs();
         
         try {
-            javafx.scene.image.WritableImage image = lineChart.snapshot(null, null);
+            Node chartView = canvasView ? canvasChart : lineChart;
+            javafx.scene.image.WritableImage image = chartView.snapshot(null, null);
             ImageIO.write(SwingFXUtils.fromFXImage(image, null), "png", file);
             
             exportCounter++;
@@ -1019,6 +1633,68 @@ public class MainApp extends Application {
 
 
 
+    /**
+     * Exports a whole set of charts in the background: every country for the current year range, or every
+     * selected country split into decades. Files go to Downloads/climate_batch with names made from the
+     * country and years, so the same export always gives the same files.
+     */
+    private void batchExport(Button batchBtn) {
+        if (data == null || data.isEmpty()) {
+            hideLoading("Load data before exporting", ACCENT_ORANGE);
+            return;
+        }
+
+        String allCountriesOption = "Every country, current year range";
+        String decadesOption = "Selected countries, one chart per decade";
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(allCountriesOption, allCountriesOption, decadesOption);
+        dialog.setTitle("Batch Export");
+        dialog.setHeaderText("Which charts should be exported?");
+        String choice = dialog.showAndWait().orElse(null);
+        if (choice == null) return;
+
+        CountryDataset dataset = data;
+        int minYear = (int) minYearSlider.getValue();
+        int maxYear = (int) maxYearSlider.getValue();
+        List<BatchExporter.Job> jobs = choice.equals(allCountriesOption)
+            ? BatchExporter.everyCountry(dataset, minYear, maxYear)
+            : BatchExporter.windows(dataset, getSelectedCountries(), minYear, maxYear, 10);
+        if (jobs.isEmpty()) {
+            hideLoading("No data to export for this selection and year range", ACCENT_ORANGE);
+            return;
+        }
+
+        java.nio.file.Path directory = java.nio.file.Paths.get(System.getProperty("user.home"), "Downloads", "climate_batch");
+        ChartImageRenderer renderer = new ChartImageRenderer(1200, 700, CARD_BG, TEXT_PRIMARY, "#404040");
+        BatchExporter exporter = new BatchExporter(renderer, java.util.Arrays.asList(SERIES_COLORS),
+            Runtime.getRuntime().availableProcessors());
+
+        // worker threads report every chart, the status bar only gets the newest count once per pulse
+        java.util.concurrent.atomic.AtomicInteger latestDone = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.atomic.AtomicBoolean progressQueued = new java.util.concurrent.atomic.AtomicBoolean();
+        BatchExporter.Progress progress = (done, total) -> {
+            latestDone.accumulateAndGet(done, Math::max);
+            if (progressQueued.compareAndSet(false, true)) {
+                javafx.application.Platform.runLater(() -> {
+                    progressQueued.set(false);
+                    statusLabel.setText("Exporting charts " + latestDone.get() + " / " + total + "...");
+                });
+            }
+        };
+
+        batchBtn.setDisable(true);
+        showLoading("Exporting " + jobs.size() + " charts...");
+        exporter.export(dataset, jobs, directory, progress).whenComplete((count, ex) ->
+            javafx.application.Platform.runLater(() -> {
+                batchBtn.setDisable(false);
+                if (ex != null) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    hideLoading("Batch export failed: " + cause.getMessage(), ACCENT_ORANGE);
+                } else {
+                    hideLoading("Exported " + count + " charts to " + directory, SUCCESS_GREEN);
+                }
+            }));
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
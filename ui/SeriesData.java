@@ -0,0 +1,48 @@
+package ui;
+
+import data.DataSlice;
+
+/**
+ * The points of one chart line copied out of the dataset into plain arrays, so they can be prepared on a
+ * background thread and handed to the FX thread in one piece.
+ */
+final class SeriesData {
+    static final SeriesData EMPTY = new SeriesData(new int[0], new double[0]);
+
+    private final int[] years;
+    private final double[] values;
+
+    SeriesData(int[] years, double[] values) {
+        this.years = years;
+        this.values = values;
+    }
+
+    static SeriesData of(DataSlice slice) {
+        int[] years = new int[slice.size()];
+        double[] values = new double[slice.size()];
+        for (int i = 0; i < years.length; i++) {
+            years[i] = slice.year(i);
+            values[i] = slice.emission(i);
+        }
+        return new SeriesData(years, values);
+    }
+
+    int size() { return years.length; }
+    int year(int i) { return years[i]; }
+    double value(int i) { return values[i]; }
+
+    /**
+     * Index of the point whose year is closest to the given one, -1 if there are no points
+     */
+    int indexOfNearest(double year) {
+        if (years.length == 0) return -1;
+        int low = 0;
+        int high = years.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (years[mid] < year) low = mid + 1; else high = mid;
+        }
+        if (low > 0 && year - years[low - 1] < years[low] - year) return low - 1;
+        return low;
+    }
+}
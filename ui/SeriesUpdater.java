@@ -0,0 +1,154 @@
+package ui;
+
+import javafx.scene.chart.XYChart;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings an existing chart series up to date instead of clearing it and building it again.
+ *
+ * Moving a slider by a year usually only adds or drops a few points at the ends of a line, so when the
+ * points that stay are unchanged only the edges are touched. Otherwise the existing XYChart.Data objects get
+ * their values overwritten and only the difference in count is added or removed. Data objects that leave a
+ * line go into a pool and are handed out again, to this series or another one.
+ */
+final class SeriesUpdater {
+    private static final int MAX_POOL_SIZE = 4096;
+
+    private final ArrayDeque<XYChart.Data<Number, Number>> pool = new ArrayDeque<>();
+
+    /**
+     * Makes the series show exactly the given points. When the chart is animating, removed points are still
+     * fading out so they are not pooled.
+     */
+    void update(XYChart.Series<Number, Number> series, SeriesData points, boolean animated) {
+        List<XYChart.Data<Number, Number>> data = series.getData();
+        if (!updateEdges(data, points, animated)) {
+            overwrite(data, points, animated);
+        }
+    }
+
+    /**
+     * Drops a whole series, keeping its points for later
+     */
+    void release(XYChart.Series<Number, Number> series, boolean animated) {
+        List<XYChart.Data<Number, Number>> removed = new ArrayList<>(series.getData());
+        series.getData().clear();
+        recycle(removed, animated);
+    }
+
+    /**
+     * The cheap path: only works when the points both versions share are identical
+     */
+    private boolean updateEdges(List<XYChart.Data<Number, Number>> data, SeriesData points, boolean animated) {
+        int size = data.size();
+        int count = points.size();
+        if (size == 0 || count == 0) return false;
+
+        int firstYear = points.year(0);
+        int lastYear = points.year(count - 1);
+        int keepFrom = firstIndexAfter(data, firstYear - 1);
+        int keepTo = firstIndexAfter(data, lastYear);
+        if (keepFrom >= keepTo) return false;
+
+        // where the kept points start in the new points
+        int offset = points.indexOfNearest(year(data, keepFrom));
+        if (points.year(offset) != year(data, keepFrom) || offset + (keepTo - keepFrom) > count) return false;
+        for (int i = keepFrom; i < keepTo; i++) {
+            XYChart.Data<Number, Number> point = data.get(i);
+            int j = offset + i - keepFrom;
+            if (point.getXValue().intValue() != points.year(j) || point.getYValue().doubleValue() != points.value(j)) {
+                return false;
+            }
+        }
+
+        if (keepTo < size) {
+            List<XYChart.Data<Number, Number>> tail = data.subList(keepTo, size);
+            List<XYChart.Data<Number, Number>> removed = new ArrayList<>(tail);
+            tail.clear();
+            recycle(removed, animated);
+        }
+        if (keepFrom > 0) {
+            List<XYChart.Data<Number, Number>> head = data.subList(0, keepFrom);
+            List<XYChart.Data<Number, Number>> removed = new ArrayList<>(head);
+            head.clear();
+            recycle(removed, animated);
+        }
+
+        int keptEnd = offset + (keepTo - keepFrom);
+        if (keptEnd < count) {
+            data.addAll(take(points, keptEnd, count));
+        }
+        if (offset > 0) {
+            data.addAll(0, take(points, 0, offset));
+        }
+        return true;
+    }
+
+    /**
+     * The fallback: reuse every existing point with new values, then add or remove the difference
+     */
+    private void overwrite(List<XYChart.Data<Number, Number>> data, SeriesData points, boolean animated) {
+        int size = data.size();
+        int count = points.size();
+        int shared = Math.min(size, count);
+        for (int i = 0; i < shared; i++) {
+            XYChart.Data<Number, Number> point = data.get(i);
+            if (point.getXValue().intValue() != points.year(i)) point.setXValue(points.year(i));
+            if (point.getYValue().doubleValue() != points.value(i)) point.setYValue(points.value(i));
+        }
+        if (size > count) {
+            List<XYChart.Data<Number, Number>> extra = data.subList(count, size);
+            List<XYChart.Data<Number, Number>> removed = new ArrayList<>(extra);
+            extra.clear();
+            recycle(removed, animated);
+        } else if (count > size) {
+            data.addAll(take(points, size, count));
+        }
+    }
+
+    private List<XYChart.Data<Number, Number>> take(SeriesData points, int from, int to) {
+        List<XYChart.Data<Number, Number>> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            XYChart.Data<Number, Number> point = pool.pollLast();
+            if (point == null) {
+                point = new XYChart.Data<>(points.year(i), points.value(i));
+            } else {
+                point.setXValue(points.year(i));
+                point.setYValue(points.value(i));
+            }
+            result.add(point);
+        }
+        return result;
+    }
+
+    private void recycle(List<XYChart.Data<Number, Number>> removed, boolean animated) {
+        if (animated) return;
+        for (XYChart.Data<Number, Number> point : removed) {
+            if (pool.size() >= MAX_POOL_SIZE) return;
+            // LineChart reuses a point's symbol and adds the new series' colour class to the old ones, so a
+            // symbol that moved series could keep the wrong colour. Dropping it makes the chart create a fresh one
+            point.setNode(null);
+            pool.addLast(point);
+        }
+    }
+
+    private static int year(List<XYChart.Data<Number, Number>> data, int i) {
+        return data.get(i).getXValue().intValue();
+    }
+
+    /**
+     * Index of the first point with a year above the given one (data is sorted by year)
+     */
+    private static int firstIndexAfter(List<XYChart.Data<Number, Number>> data, int year) {
+        int low = 0;
+        int high = data.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (year(data, mid) <= year) low = mid + 1; else high = mid;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,111 @@
+package ui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Runs chart updates on a background thread so dragging a slider never blocks the FX thread.
+ *
+ * Every request replaces the one before it, so a burst of slider events turns into at most one computation
+ * running plus one waiting. A computation that gets overtaken by a newer request can notice through the
+ * "stale" check it is given and stop early, and its result is never shown. Only the newest result is handed
+ * to the FX thread.
+ */
+final class UpdateScheduler<T> {
+
+    /**
+     * Background work for one update. It should return null (or just finish) once stale says true.
+     */
+    interface Computation<T> {
+        T compute(BooleanSupplier stale);
+    }
+
+    private static final class Job<T> {
+        final long id;
+        final Computation<T> computation;
+        final Consumer<T> apply;
+
+        Job(long id, Computation<T> computation, Consumer<T> apply) {
+            this.id = id;
+            this.computation = computation;
+            this.apply = apply;
+        }
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chart-update");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<Job<T>> latest = new AtomicReference<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final Consumer<Throwable> onError;
+    private final Executor fxThread;
+
+    UpdateScheduler(Consumer<Throwable> onError) {
+        this(onError, Platform::runLater);
+    }
+
+    /**
+     * fxThread is where results and errors are handed over, tests pass their own instead of the FX thread
+     */
+    UpdateScheduler(Consumer<Throwable> onError, Executor fxThread) {
+        this.onError = onError;
+        this.fxThread = fxThread;
+    }
+
+    /**
+     * Asks for an update. computation runs in the background, apply runs on the FX thread with its result
+     * unless another request came in first.
+     */
+    void request(Computation<T> computation, Consumer<T> apply) {
+        long id = generation.incrementAndGet();
+        latest.set(new Job<>(id, computation, apply));
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Job<T> job = latest.getAndSet(null);
+            if (job == null) {
+                draining.set(false);
+                // a request may have slipped in between the empty check and clearing the flag
+                if (latest.get() == null || !draining.compareAndSet(false, true)) return;
+                continue;
+            }
+            run(job);
+        }
+    }
+
+    private void run(Job<T> job) {
+        BooleanSupplier stale = () -> generation.get() != job.id;
+        T result;
+        try {
+            result = job.computation.compute(stale);
+        } catch (RuntimeException e) {
+            if (!stale.getAsBoolean()) {
+                fxThread.execute(() -> onError.accept(e));
+            }
+            return;
+        }
+        if (result == null || stale.getAsBoolean()) return;
+
+        fxThread.execute(() -> {
+            // check again, a newer request may have arrived while this was waiting for the FX thread
+            if (!stale.getAsBoolean()) {
+                job.apply.accept(result);
+            }
+        });
+    }
+}